@@ -0,0 +1,78 @@
+package percolation.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Loads a snapshot with each site open with probability p into a reset grid,
+ * PER_SITE by one open per site in row-major order, MASK by one openMask
+ * call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkLoadBenchmark {
+
+    @Param({ "1000", "4000" })
+    public int n;
+
+    @Param({ "0.6", "0.9" })
+    public double p;
+
+    @Param({ "PER_SITE", "MASK" })
+    public String load;
+
+    private Object perc;
+    private long[] mask;
+
+    @Setup
+    public void setup() throws Throwable {
+        int words = (this.n + 63) / 64;
+        this.mask = new long[this.n * words];
+        SplittableRandom random = new SplittableRandom(24);
+        for (int row = 0; row < this.n; row++) {
+            for (int col = 0; col < this.n; col++) {
+                if (random.nextDouble() < this.p) {
+                    this.mask[row * words + (col >>> 6)] |= 1L << col;
+                }
+            }
+        }
+        this.perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, Subjects.backend("FLAT"));
+    }
+
+    @Benchmark
+    public boolean load() throws Throwable {
+        Object perc = this.perc;
+        Subjects.RESET.invokeExact(perc);
+        if ("MASK".equals(this.load)) {
+            Subjects.OPEN_MASK.invokeExact(perc, (Object) this.mask);
+            return (boolean) Subjects.PERCOLATES.invokeExact(perc);
+        }
+        int n = this.n;
+        int words = (n + 63) / 64;
+        long[] mask = this.mask;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                if ((mask[row * words + (col >>> 6)] & (1L << col)) != 0) {
+                    Subjects.OPEN.invokeExact(perc, row + 1, col + 1);
+                }
+            }
+        }
+        return (boolean) Subjects.PERCOLATES.invokeExact(perc);
+    }
+}
@@ -0,0 +1,45 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Cost of new Percolation(n) for each union find backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    @Param({ "100", "1000", "4000" })
+    public int n;
+
+    @Param({ "FLAT", "WEIGHTED_QUICK_UNION" })
+    public String backend;
+
+    private Object backendValue;
+
+    @Setup
+    public void setup() {
+        this.backendValue = Subjects.backend(this.backend);
+    }
+
+    @Benchmark
+    public Object construct() throws Throwable {
+        return (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+    }
+}
@@ -0,0 +1,92 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The scan PercolationVisualizer.draw does every frame on a grid opened until
+ * it percolates. PER_SITE calls isFull and then isOpen for each of the n^2
+ * sites, ROW_STATE fills a row of states at a time and FULL_MASK copies the
+ * full bits of the whole grid in one pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsFullScanBenchmark {
+
+    @Param({ "100", "1000", "4000" })
+    public int n;
+
+    @Param({ "FLAT", "WEIGHTED_QUICK_UNION" })
+    public String backend;
+
+    @Param({ "PER_SITE", "ROW_STATE", "FULL_MASK" })
+    public String scan;
+
+    private Object perc;
+    private byte[] states;
+    private long[] mask;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, Subjects.backend(this.backend));
+        for (int site : SiteOrders.random(this.n)) {
+            if ((boolean) Subjects.PERCOLATES.invokeExact(this.perc)) {
+                break;
+            }
+            Subjects.OPEN_SITE.invokeExact(this.perc, site);
+        }
+        this.states = new byte[this.n];
+        this.mask = new long[this.n * ((this.n + 63) / 64)];
+    }
+
+    @Benchmark
+    public int scan() throws Throwable {
+        Object perc = this.perc;
+        int n = this.n;
+        int full = 0;
+        int open = 0;
+        if ("FULL_MASK".equals(this.scan)) {
+            Subjects.FULL_MASK.invokeExact(perc, (Object) this.mask);
+            for (long word : this.mask) {
+                full += Long.bitCount(word);
+            }
+            return full;
+        }
+        if ("ROW_STATE".equals(this.scan)) {
+            byte[] states = this.states;
+            for (int row = 1; row <= n; row++) {
+                Subjects.FILL_ROW_STATE.invokeExact(perc, row, (Object) states);
+                for (byte state : states) {
+                    full += state >> 1;
+                    open += state & 1;
+                }
+            }
+            return full * 31 + open;
+        }
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                if ((boolean) Subjects.IS_FULL.invokeExact(perc, row, col)) {
+                    full++;
+                } else if ((boolean) Subjects.IS_OPEN.invokeExact(perc, row, col)) {
+                    open++;
+                }
+            }
+        }
+        return full * 31 + open;
+    }
+}
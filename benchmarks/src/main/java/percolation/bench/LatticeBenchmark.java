@@ -0,0 +1,59 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Opening every site in random order on each lattice of LatticePercolation,
+ * to compare with the same sweep in OpenBenchmark on Percolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatticeBenchmark {
+
+    @Param({ "1000", "4000" })
+    public int n;
+
+    @Param({ "SQUARE_4", "SQUARE_8", "TRIANGULAR", "HEXAGONAL" })
+    public String lattice;
+
+    private Object latticeValue;
+    private int[] sites;
+    private Object perc;
+
+    @Setup(Level.Trial)
+    public void setupOrder() {
+        this.latticeValue = Subjects.lattice(this.lattice);
+        this.sites = SiteOrders.random(this.n);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupGrid() throws Throwable {
+        this.perc = (Object) Subjects.NEW_LATTICE_PERCOLATION.invokeExact(this.n, this.latticeValue);
+    }
+
+    @Benchmark
+    public Object openAll() throws Throwable {
+        Object perc = this.perc;
+        for (int site : this.sites) {
+            Subjects.LATTICE_OPEN_SITE.invokeExact(perc, site);
+        }
+        return perc;
+    }
+}
@@ -0,0 +1,63 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * One trial in random order, opening sites until the grid percolates, for
+ * each union find layout. A trial at n = 16000 takes seconds so each
+ * iteration is a single shot on a reset grid. 16000 needs about 2.5 GB of
+ * heap, the fork is given 4 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LayoutBenchmark {
+
+    @Param({ "1000", "4000", "16000" })
+    public int n;
+
+    @Param({ "ROW_MAJOR", "TILED", "MORTON" })
+    public String layout;
+
+    private int[] sites;
+    private Object perc;
+
+    @Setup(Level.Trial)
+    public void setupGrid() throws Throwable {
+        this.sites = SiteOrders.random(this.n);
+        this.perc = (Object) Subjects.NEW_LAID_OUT_PERCOLATION.invokeExact(this.n, Subjects.backend("FLAT"),
+                Subjects.layout(this.layout));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetGrid() throws Throwable {
+        Subjects.RESET.invokeExact(this.perc);
+    }
+
+    @Benchmark
+    public int trial() throws Throwable {
+        Object perc = this.perc;
+        int[] sites = this.sites;
+        int k = 0;
+        while (!(boolean) Subjects.PERCOLATES.invokeExact(perc)) {
+            Subjects.OPEN_SITE.invokeExact(perc, sites[k++]);
+        }
+        return k;
+    }
+}
@@ -0,0 +1,72 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Time to open every site of a fresh grid through open(i, j), in random,
+ * row-major and adversarial orders. Divide by n^2 for the cost of one open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenBenchmark {
+
+    @Param({ "100", "1000", "4000" })
+    public int n;
+
+    @Param({ "RANDOM", "ROW_MAJOR", "ADVERSARIAL" })
+    public String order;
+
+    @Param({ "FLAT", "WEIGHTED_QUICK_UNION" })
+    public String backend;
+
+    private Object backendValue;
+    private int[] rows;
+    private int[] columns;
+    private Object perc;
+
+    @Setup(Level.Trial)
+    public void setupOrder() {
+        this.backendValue = Subjects.backend(this.backend);
+        int[] sites = SiteOrders.of(this.order, this.n);
+        this.rows = new int[sites.length];
+        this.columns = new int[sites.length];
+        for (int k = 0; k < sites.length; k++) {
+            this.rows[k] = sites[k] / this.n + 1;
+            this.columns[k] = sites[k] % this.n + 1;
+        }
+    }
+
+    // a full sweep takes milliseconds so a fresh grid per invocation is cheap to set up
+    @Setup(Level.Invocation)
+    public void setupGrid() throws Throwable {
+        this.perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+    }
+
+    @Benchmark
+    public Object openAll() throws Throwable {
+        Object perc = this.perc;
+        int[] rows = this.rows;
+        int[] columns = this.columns;
+        for (int k = 0; k < rows.length; k++) {
+            Subjects.OPEN.invokeExact(perc, rows[k], columns[k]);
+        }
+        return perc;
+    }
+}
@@ -0,0 +1,66 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * One random trial on the benchmark thread, opening sites in a fixed random
+ * order until the system percolates, on a new grid each time or on one grid
+ * that is reset. Runs on the calling thread so gc.alloc.rate.norm is the
+ * allocation of a trial, it should be about 0 B/op for RESET.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResetBenchmark {
+
+    @Param({ "100", "1000", "2000" })
+    public int n;
+
+    @Param({ "NEW", "RESET" })
+    public String grid;
+
+    @Param({ "FLAT", "WEIGHTED_QUICK_UNION" })
+    public String backend;
+
+    private Object backendValue;
+    private int[] sites;
+    private Object perc;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.backendValue = Subjects.backend(this.backend);
+        this.sites = SiteOrders.random(this.n);
+        this.perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+    }
+
+    @Benchmark
+    public int trial() throws Throwable {
+        Object perc = this.perc;
+        if ("RESET".equals(this.grid)) {
+            Subjects.RESET.invokeExact(perc);
+        } else {
+            perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+        }
+        int[] sites = this.sites;
+        int k = 0;
+        while (!(boolean) Subjects.PERCOLATES.invokeExact(perc)) {
+            Subjects.OPEN_SITE.invokeExact(perc, sites[k++]);
+        }
+        return k;
+    }
+}
@@ -0,0 +1,69 @@
+package percolation.bench;
+
+import java.util.SplittableRandom;
+
+/*
+ * Orders in which the benchmarks open the n^2 sites of a grid, as flat
+ * indices (i - 1) * n + (j - 1).
+ */
+final class SiteOrders {
+
+    // fixed so every run of a benchmark opens the same sites
+    static final long SEED = 0x5eed;
+
+    private SiteOrders() {
+    }
+
+    static int[] of(String order, int n) {
+        switch (order) {
+        case "RANDOM":
+            return random(n);
+        case "ROW_MAJOR":
+            return rowMajor(n);
+        case "ADVERSARIAL":
+            return adversarial(n);
+        default:
+            throw new IllegalArgumentException("Unknown order: " + order);
+        }
+    }
+
+    static int[] rowMajor(int n) {
+        int[] sites = new int[n * n];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = i;
+        }
+        return sites;
+    }
+
+    static int[] random(int n) {
+        int[] sites = rowMajor(n);
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = sites.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int site = sites[i];
+            sites[i] = sites[j];
+            sites[j] = site;
+        }
+        return sites;
+    }
+
+    /*
+     * Every other site of a checkerboard first, so no site has an open
+     * neighbour, then the rest, so every open after that does a union with
+     * each of its neighbours and merges many small trees.
+     */
+    static int[] adversarial(int n) {
+        int[] sites = new int[n * n];
+        int k = 0;
+        for (int parity = 0; parity < 2; parity++) {
+            for (int row = 0; row < n; row++) {
+                for (int column = 0; column < n; column++) {
+                    if (((row + column) & 1) == parity) {
+                        sites[k++] = row * n + column;
+                    }
+                }
+            }
+        }
+        return sites;
+    }
+}
@@ -0,0 +1,59 @@
+package percolation.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * End to end latency of PercolationStats, one trial per operation on a
+ * single worker thread so the number is the cost of one trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsBenchmark {
+
+    @Param({ "100", "1000", "4000" })
+    public int n;
+
+    @Param({ "REJECTION", "PERMUTATION", "CRITICAL_INDEX" })
+    public String mode;
+
+    private Object modeValue;
+    private ForkJoinPool pool;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        this.modeValue = Subjects.trialMode(this.mode);
+        this.pool = new ForkJoinPool(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Benchmark
+    public double trial() throws Throwable {
+        // a new seed each time so the JIT cannot settle on one trial's path
+        Object stats = (Object) Subjects.NEW_STATS.invokeExact(this.n, 1, this.seed++, (Object) this.pool,
+                this.modeValue);
+        return (double) Subjects.MEAN.invokeExact(stats);
+    }
+}
@@ -0,0 +1,85 @@
+package percolation.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * A what-if query against a live grid with half of its sites open: would
+ * opening the next 50 sites of a random order make it percolate? ROLLBACK
+ * marks the grid, opens them and rolls back, REBUILD replays the open sites
+ * into a new grid first, the cost of answering without an undo log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhatIfBenchmark {
+
+    private static final int BATCH = 50;
+
+    @Param({ "100", "1000", "2000" })
+    public int n;
+
+    @Param({ "ROLLBACK", "REBUILD" })
+    public String query;
+
+    private Object backendValue;
+    private int[] sites;
+    private int baseSites;
+    private Object perc;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.backendValue = Subjects.backend("FLAT");
+        this.sites = SiteOrders.random(this.n);
+        this.baseSites = this.n * this.n / 2;
+        this.perc = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+        for (int k = 0; k < this.baseSites; k++) {
+            Subjects.OPEN_SITE.invokeExact(this.perc, this.sites[k]);
+        }
+        this.next = this.baseSites;
+    }
+
+    @Benchmark
+    public boolean whatIf() throws Throwable {
+        int[] sites = this.sites;
+        // each query takes the next batch of the closed half, wrapping round
+        if (this.next + BATCH > sites.length) {
+            this.next = this.baseSites;
+        }
+        int from = this.next;
+        this.next += BATCH;
+        if ("REBUILD".equals(this.query)) {
+            Object copy = (Object) Subjects.NEW_PERCOLATION.invokeExact(this.n, this.backendValue);
+            for (int k = 0; k < this.baseSites; k++) {
+                Subjects.OPEN_SITE.invokeExact(copy, sites[k]);
+            }
+            for (int k = from; k < from + BATCH; k++) {
+                Subjects.OPEN_SITE.invokeExact(copy, sites[k]);
+            }
+            return (boolean) Subjects.PERCOLATES.invokeExact(copy);
+        }
+        Object perc = this.perc;
+        int mark = (int) Subjects.MARK.invokeExact(perc);
+        for (int k = from; k < from + BATCH; k++) {
+            Subjects.OPEN_SITE.invokeExact(perc, sites[k]);
+        }
+        boolean percolates = (boolean) Subjects.PERCOLATES.invokeExact(perc);
+        Subjects.ROLLBACK.invokeExact(perc, mark);
+        return percolates;
+    }
+}
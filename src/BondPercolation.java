@@ -0,0 +1,160 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * BondPercolation.java
+ */
+public class BondPercolation {
+
+    private final int gridSize;
+    private final FlatUnionFind unionFind;
+
+    /*
+     * Each site owns the bonds to its neighbours that come after it in row
+     * major order, as (row, column) steps by parity like the lattice deltas.
+     * Bond b is step b % slots of site b / slots, a step off the grid is a
+     * slot without a bond.
+     */
+    private final int[][] rowSteps;
+    private final int[][] columnSteps;
+    private final int slots;
+    private final long[] openBonds;
+    private int numberOfOpenBonds;
+
+    /*
+     * Constructor for bond percolation on an n-by-n patch of the lattice.
+     * Every site is present and every bond closed, the top and bottom rows
+     * are flagged up front so opening a bond is a single union.
+     *
+     * @param int n - the grid size
+     *
+     * @param Lattice lattice - which sites a bond can join
+     */
+    public BondPercolation(int n, Lattice lattice) {
+        if (n <= 1) {
+            throw new IllegalArgumentException("Error: BondPercolation() n <= 1");
+        }
+        this.gridSize = n;
+        int width = n + 2;
+        this.rowSteps = new int[4][];
+        this.columnSteps = new int[4][];
+        int slots = 0;
+        for (int parity = 0; parity < 4; parity++) {
+            int[] deltas = lattice.neighbourDeltas(width, parity >>> 1, parity & 1);
+            int forward = 0;
+            for (int delta : deltas) {
+                if (delta > 0) {
+                    forward++;
+                }
+            }
+            this.rowSteps[parity] = new int[forward];
+            this.columnSteps[parity] = new int[forward];
+            int k = 0;
+            for (int delta : deltas) {
+                if (delta > 0) {
+                    // every delta is within one row and one column of the site
+                    int row = (delta + 1) / width;
+                    this.rowSteps[parity][k] = row;
+                    this.columnSteps[parity][k] = delta - row * width;
+                    k++;
+                }
+            }
+            slots = Math.max(slots, forward);
+        }
+        if ((long) n * n * slots > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: BondPercolation() bond count overflows int");
+        }
+        this.slots = slots;
+        this.openBonds = new long[(n * n * slots + 63) >>> 6];
+        this.unionFind = new FlatUnionFind(n * n);
+        for (int column = 0; column < n; column++) {
+            this.unionFind.mark(column, SiteUnionFind.TOP);
+            this.unionFind.mark((n - 1) * n + column, SiteUnionFind.BOTTOM);
+        }
+    }
+
+    /*
+     * @return int the number of bond slots, bond indices run from 0 to this
+     * minus 1 and isBond tells which slots are real bonds
+     */
+    public int bondSlots() {
+        return this.gridSize * this.gridSize * this.slots;
+    }
+
+    public boolean isBond(int bond) {
+        return other(bond) >= 0;
+    }
+
+    /*
+     * Open a bond and union the two sites it joins.
+     *
+     * @param int bond - the bond index
+     */
+    public void openBond(int bond) {
+        int other = other(bond);
+        if (other < 0) {
+            throw new IllegalArgumentException("Error: openBond() " + bond + " is not a bond");
+        }
+        long bit = 1L << bond;
+        if ((this.openBonds[bond >>> 6] & bit) != 0) {
+            return;
+        }
+        this.openBonds[bond >>> 6] |= bit;
+        this.numberOfOpenBonds++;
+        this.unionFind.union(bond / this.slots, other);
+    }
+
+    public boolean isBondOpen(int bond) {
+        if (bond < 0 || bond >= bondSlots()) {
+            throw new IndexOutOfBoundsException("Error: isBondOpen()");
+        }
+        return (this.openBonds[bond >>> 6] & (1L << bond)) != 0;
+    }
+
+    public int numberOfOpenBonds() {
+        return this.numberOfOpenBonds;
+    }
+
+    /*
+     * Check if the site is connected to the top row through open bonds.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     *
+     * @return boolean isFull site status
+     */
+    public boolean isFull(int i, int j) {
+        if (i <= 0 || i > this.gridSize || j <= 0 || j > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: isFull()");
+        }
+        return (this.unionFind.status((i - 1) * this.gridSize + (j - 1)) & SiteUnionFind.TOP) != 0;
+    }
+
+    public boolean percolates() {
+        return this.unionFind.percolates();
+    }
+
+    // the flat index of the far site of a bond, -1 for a slot without a bond
+    private int other(int bond) {
+        if (bond < 0 || bond >= bondSlots()) {
+            throw new IndexOutOfBoundsException("Error: bond " + bond);
+        }
+        int n = this.gridSize;
+        int site = bond / this.slots;
+        int step = bond - site * this.slots;
+        int row = site / n;
+        int column = site - row * n;
+        int parity = (row & 1) << 1 | (column & 1);
+        if (step >= this.rowSteps[parity].length) {
+            return -1;
+        }
+        row += this.rowSteps[parity][step];
+        column += this.columnSteps[parity][step];
+        if (row >= n || column < 0 || column >= n) {
+            return -1;
+        }
+        return row * n + column;
+    }
+}
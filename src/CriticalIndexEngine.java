@@ -0,0 +1,166 @@
+import java.util.SplittableRandom;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * CriticalIndexEngine.java
+ */
+public class CriticalIndexEngine {
+
+    private final int gridSize;
+    private final int[] sites;
+    // one int per site, an open check and a root's status from one cache line
+    private final PackedUnionFind node;
+    private boolean percolates;
+    private final PercolationMetrics.Counts counts = PercolationMetrics.ENABLED ? new PercolationMetrics.Counts()
+            : null;
+
+    /*
+     * Constructor allocates the union find and the site order for an n-by-n
+     * system once, they are reused by every call.
+     *
+     * @param int n - the grid size
+     */
+    public CriticalIndexEngine(int n) {
+        if (n <= 1) {
+            throw new IllegalArgumentException("Error: CriticalIndexEngine() n <= 1");
+        }
+        this.gridSize = n;
+        this.sites = new int[n * n];
+        for (int i = 0; i < this.sites.length; i++) {
+            this.sites[i] = i;
+        }
+        this.node = new PackedUnionFind.Ints(n * n, this.counts);
+    }
+
+    /*
+     * Open the sites in the given order and report how many had been opened
+     * when the system first percolated. Sites are flat indices as taken by
+     * Percolation.open(int) and the order is trusted to be a permutation, so
+     * there are no bounds or already open checks and no percolates() call,
+     * the union latches the moment top and bottom join.
+     *
+     * @param int[] order - a permutation of the n^2 flat site indices
+     *
+     * @return int the number of open sites at which the system percolates
+     */
+    public int criticalIndex(int[] order) {
+        if (order.length != this.sites.length) {
+            throw new IllegalArgumentException("Error: criticalIndex() order.length != n^2");
+        }
+        int opened = order.length;
+        for (int k = 0; k < order.length; k++) {
+            openSite(order[k]);
+            if (this.percolates) {
+                opened = k + 1;
+                break;
+            }
+        }
+        close(order, opened);
+        return opened;
+    }
+
+    /*
+     * Shuffle the sites with the same lazy Fisher-Yates swap that
+     * PercolationStats uses and report the critical index. Only the prefix up
+     * to the critical index is ever shuffled, and it is put back in order
+     * afterwards so the result only depends on the random stream.
+     *
+     * @param SplittableRandom random - the random stream for this trial
+     *
+     * @return int the number of open sites at which the system percolates
+     */
+    public int criticalIndex(SplittableRandom random) {
+        int[] sites = this.sites;
+        int opened = sites.length;
+        for (int k = 0; k < sites.length; k++) {
+            int pick = k + random.nextInt(sites.length - k);
+            int site = sites[pick];
+            sites[pick] = sites[k];
+            sites[k] = site;
+            openSite(site);
+            if (this.percolates) {
+                opened = k + 1;
+                break;
+            }
+        }
+        close(sites, opened);
+        unshuffle(sites, opened);
+        if (PercolationMetrics.ENABLED) {
+            PercolationMetrics.recordDraws(opened);
+        }
+        return opened;
+    }
+
+    /*
+     * Close the first count sites of the order again, they are the only nodes
+     * a call touches so the next call starts from a closed grid without an
+     * O(n^2) fill.
+     */
+    private void close(int[] order, int count) {
+        PackedUnionFind node = this.node;
+        for (int k = 0; k < count; k++) {
+            node.close(order[k]);
+        }
+        this.percolates = false;
+        // every call ends here, so this is where its counts are published
+        if (PercolationMetrics.ENABLED) {
+            this.counts.flush();
+        }
+    }
+
+    /*
+     * Undo a lazy Fisher-Yates shuffle of the first count positions of an
+     * identity array. A position past the prefix only changes when it is
+     * picked, which moves its own value into the prefix for good, so every
+     * prefix value v >= count names the one position v that needs restoring.
+     *
+     * @param int[] sites - the partly shuffled identity array
+     *
+     * @param int count - the number of positions that were shuffled
+     */
+    static void unshuffle(int[] sites, int count) {
+        for (int k = 0; k < count; k++) {
+            int site = sites[k];
+            if (site >= count) {
+                sites[site] = site;
+            }
+            sites[k] = k;
+        }
+    }
+
+    /*
+     * Open the site and union it with its open neighbours, the same steps as
+     * Percolation.open(int) without the bounds check.
+     *
+     * @param int site - the flat index of the site
+     */
+    private void openSite(int site) {
+        PackedUnionFind node = this.node;
+        int n = this.gridSize;
+        int column = site % n;
+        boolean spans = false;
+        node.open(site);
+        if (site < n) {
+            spans |= node.mark(site, PackedUnionFind.TOP);
+        } else if (node.isOpen(site - n)) {
+            spans |= node.union(site, site - n);
+        }
+        if (site >= n * (n - 1)) {
+            spans |= node.mark(site, PackedUnionFind.BOTTOM);
+        } else if (node.isOpen(site + n)) {
+            spans |= node.union(site, site + n);
+        }
+        if (column > 0 && node.isOpen(site - 1)) {
+            spans |= node.union(site, site - 1);
+        }
+        if (column < n - 1 && node.isOpen(site + 1)) {
+            spans |= node.union(site, site + 1);
+        }
+        if (spans) {
+            this.percolates = true;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.SplittableRandom;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * CubicPercolation.java
+ */
+public class CubicPercolation {
+
+    /*
+     * Site (x, y, z), 1 based, is flat index ((z - 1) * L + (y - 1)) * L +
+     * (x - 1). The flat index is a long so L can pass 1290, where L^3
+     * overflows an int, and the nodes live in the pages of a PackedUnionFind.
+     * The top face z = 1 and the bottom face z = L are status bits on the
+     * roots, the same role as virtual top and bottom nodes without connecting
+     * the faces to each other.
+     */
+    private final int size;
+    private final long sites;
+    private final PackedUnionFind node;
+    private long openSites;
+    private boolean percolates;
+
+    /*
+     * Constructor for an L-by-L-by-L cube of closed sites.
+     *
+     * @param int size - the edge length L
+     */
+    public CubicPercolation(int size) {
+        if (size <= 1) {
+            throw new IllegalArgumentException("Error: CubicPercolation() size <= 1");
+        }
+        this.size = size;
+        this.sites = (long) size * size * size;
+        this.node = new PackedUnionFind.Pages(this.sites);
+    }
+
+    /*
+     * Close every site again so the cube can be reused, one fill per page.
+     */
+    public void reset() {
+        this.node.closeAll();
+        this.openSites = 0;
+        this.percolates = false;
+    }
+
+    /*
+     * Open the site and union it with its open face neighbours.
+     *
+     * @param int x - the column, 1 to L
+     *
+     * @param int y - the row, 1 to L
+     *
+     * @param int z - the layer, 1 is the top face and L the bottom face
+     */
+    public void open(int x, int y, int z) {
+        validate(x, y, z, "open()");
+        openSite(index(x, y, z), x - 1, y - 1, z - 1);
+    }
+
+    /*
+     * Open a site given its flat index.
+     *
+     * @param long site - the flat index, 0 to L^3 - 1
+     */
+    public void open(long site) {
+        if (site < 0 || site >= this.sites) {
+            throw new IndexOutOfBoundsException("Error: open()");
+        }
+        long layer = (long) this.size * this.size;
+        int z = (int) (site / layer);
+        long rest = site - z * layer;
+        int y = (int) (rest / this.size);
+        openSite(site, (int) (rest - (long) y * this.size), y, z);
+    }
+
+    public boolean isOpen(int x, int y, int z) {
+        validate(x, y, z, "isOpen()");
+        return this.node.isOpen(index(x, y, z));
+    }
+
+    /*
+     * Check if the site is open and connected to the top face.
+     *
+     * @return boolean isFull site status
+     */
+    public boolean isFull(int x, int y, int z) {
+        validate(x, y, z, "isFull()");
+        long site = index(x, y, z);
+        return this.node.isOpen(site) && this.node.hasStatus(site, PackedUnionFind.TOP);
+    }
+
+    /*
+     * Check if an open cluster joins the top face to the bottom face.
+     */
+    public boolean percolates() {
+        return this.percolates;
+    }
+
+    public long numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    /*
+     * Open random sites until the cube percolates, starting from a closed
+     * cube, and report how many were opened. A random site that is already
+     * open is drawn again, below the threshold of about 0.3116 that wastes
+     * fewer than half of the draws and needs no L^3 permutation in memory.
+     *
+     * @param SplittableRandom random - the random stream for this trial
+     *
+     * @return long the number of open sites at which the cube percolates
+     */
+    public long criticalIndex(SplittableRandom random) {
+        reset();
+        while (!this.percolates) {
+            long site = random.nextLong(this.sites);
+            if (!this.node.isOpen(site)) {
+                open(site);
+            }
+        }
+        return this.openSites;
+    }
+
+    private void openSite(long site, int x, int y, int z) {
+        PackedUnionFind node = this.node;
+        if (node.isOpen(site)) {
+            return;
+        }
+        int n = this.size;
+        long layer = (long) n * n;
+        boolean spans = false;
+        node.open(site);
+        this.openSites++;
+        if (z == 0) {
+            spans |= node.mark(site, PackedUnionFind.TOP);
+        } else if (node.isOpen(site - layer)) {
+            spans |= node.union(site, site - layer);
+        }
+        if (z == n - 1) {
+            spans |= node.mark(site, PackedUnionFind.BOTTOM);
+        } else if (node.isOpen(site + layer)) {
+            spans |= node.union(site, site + layer);
+        }
+        if (y > 0 && node.isOpen(site - n)) {
+            spans |= node.union(site, site - n);
+        }
+        if (y < n - 1 && node.isOpen(site + n)) {
+            spans |= node.union(site, site + n);
+        }
+        if (x > 0 && node.isOpen(site - 1)) {
+            spans |= node.union(site, site - 1);
+        }
+        if (x < n - 1 && node.isOpen(site + 1)) {
+            spans |= node.union(site, site + 1);
+        }
+        if (spans) {
+            this.percolates = true;
+        }
+    }
+
+    private long index(int x, int y, int z) {
+        return ((long) (z - 1) * this.size + (y - 1)) * this.size + (x - 1);
+    }
+
+    private void validate(int x, int y, int z, String method) {
+        if (x <= 0 || x > this.size || y <= 0 || y > this.size || z <= 0 || z > this.size) {
+            throw new IndexOutOfBoundsException("Error: " + method);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * CubicPercolationStats.java
+ */
+public class CubicPercolationStats {
+
+    private final int size;
+    private final RunningStats cycleStats = new RunningStats();
+
+    /*
+     * Constructor runs the 3D experiments in parallel on the pool, one cube
+     * per worker thread reused between trials. Trials draw from the same per
+     * trial random streams as PercolationStats, so the results only depend on
+     * the seed.
+     *
+     * @param int size - the edge length L of the cube
+     *
+     * @param int trials - the number of experiments to run
+     *
+     * @param long seed - the master seed for the trial random streams
+     *
+     * @param ForkJoinPool pool - the pool to run the experiments on
+     */
+    public CubicPercolationStats(int size, int trials, long seed, ForkJoinPool pool) {
+        this.size = size;
+        for (double result : ParallelTrialRunner.run(pool, trials, seed, () -> {
+            CubicPercolation cube = new CubicPercolation(size);
+            return random -> cube.criticalIndex(random);
+        })) {
+            this.cycleStats.add(result);
+        }
+    }
+
+    /*
+     * @return double the mean number of open sites at percolation
+     */
+    public double mean() {
+        return this.cycleStats.mean();
+    }
+
+    public double stddev() {
+        return this.cycleStats.stddev();
+    }
+
+    public double confidenceLo() {
+        return this.cycleStats.mean() - this.cycleStats.marginOfError();
+    }
+
+    public double confidenceHi() {
+        return this.cycleStats.mean() + this.cycleStats.marginOfError();
+    }
+
+    /*
+     * @return double the mean fraction of open sites at percolation, the
+     * estimate of the site threshold
+     */
+    public double threshold() {
+        return this.cycleStats.mean() / ((double) this.size * this.size * this.size);
+    }
+
+    /*
+     * Runs 3D percolation experiments and prints the statistics.
+     *
+     * Usage: java CubicPercolationStats <L> <T> [seed] [threads]
+     */
+    public static void main(String[] args) {
+        int size = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        CubicPercolationStats ps;
+        try {
+            ps = new CubicPercolationStats(size, trials, seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        double sites = (double) size * size * size;
+        System.out.printf("threshold\t\t= %f\n", ps.threshold());
+        System.out.printf("stddev\t\t\t= %f\n", ps.stddev() / sites);
+        System.out.printf("95%% confidence interval\t= %f, %f\n", ps.confidenceLo() / sites, ps.confidenceHi() / sites);
+    }
+}
@@ -0,0 +1,336 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * DynamicPercolation.java
+ */
+public class DynamicPercolation {
+
+    private static final int NEVER = -1;
+
+    private final int gridSize;
+    private final BitSet open = new BitSet();
+    private int events;
+    private boolean solved;
+
+    // open since event, per site, and joined since event, per right and down bond
+    private final int[] openSince;
+    private final int[] joinedSince;
+
+    /*
+     * Everything that holds over a range of events, an edge between two open
+     * neighbours (first, second) or a top or bottom flag (site, -1 - status),
+     * from event start to event end exclusive.
+     */
+    private int[] itemFirst = new int[64];
+    private int[] itemSecond = new int[64];
+    private int[] itemStart = new int[64];
+    private int[] itemEnd = new int[64];
+    private int items;
+
+    // isFull queries, the site and the event after which it is asked
+    private int[] querySite = new int[16];
+    private int[] queryEvent = new int[16];
+    private int queries;
+
+    private BitSet percolatesAfter;
+    private BitSet fullAnswers;
+
+    /*
+     * Constructor for an offline run over an n-by-n grid of closed sites.
+     * Events and queries are recorded first, solve() then answers them all:
+     * every edge and flag is alive over a range of events, the ranges are
+     * stored in a segment tree over time, and a depth first walk of the tree
+     * applies them to a union find that is rolled back on the way up. Each
+     * range lands in O(log T) tree nodes and each union costs O(log n), so
+     * the whole run is O((T + Q) log T log n) for T events.
+     *
+     * @param int n - the grid size
+     */
+    public DynamicPercolation(int n) {
+        if (n <= 1) {
+            throw new IllegalArgumentException("Error: DynamicPercolation() n <= 1");
+        }
+        if ((long) n * n * 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: DynamicPercolation() n^2 too large");
+        }
+        this.gridSize = n;
+        this.openSince = new int[n * n];
+        this.joinedSince = new int[n * n * 2];
+    }
+
+    /*
+     * Record opening the site as the next event. Opening an open site is an
+     * event that changes nothing.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     */
+    public void open(int i, int j) {
+        int site = site(i, j, "open()");
+        int now = this.events++;
+        if (this.open.get(site)) {
+            return;
+        }
+        this.open.set(site);
+        this.openSince[site] = now;
+        forEachOpenNeighbour(site, (bond, neighbour) -> this.joinedSince[bond] = now);
+    }
+
+    /*
+     * Record closing the site as the next event, the ranges of its flags and
+     * edges end here. Closing a closed site is an event that changes nothing.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     */
+    public void close(int i, int j) {
+        int site = site(i, j, "close()");
+        int now = this.events++;
+        if (!this.open.get(site)) {
+            return;
+        }
+        this.open.clear(site);
+        endSite(site, now);
+    }
+
+    /*
+     * Ask whether the site is full after the events recorded so far.
+     *
+     * @return int the query id to read the answer with after solve()
+     */
+    public int queryFull(int i, int j) {
+        int site = site(i, j, "queryFull()");
+        if (this.queries == this.querySite.length) {
+            this.querySite = Arrays.copyOf(this.querySite, this.queries * 2);
+            this.queryEvent = Arrays.copyOf(this.queryEvent, this.queries * 2);
+        }
+        // a closed site is never full, -1 answers without looking
+        this.querySite[this.queries] = this.open.get(site) ? site : NEVER;
+        this.queryEvent[this.queries] = this.events - 1;
+        return this.queries++;
+    }
+
+    public int numberOfEvents() {
+        return this.events;
+    }
+
+    /*
+     * Answer every recorded event and query. No more events can be recorded
+     * afterwards.
+     */
+    public void solve() {
+        if (this.solved) {
+            return;
+        }
+        this.solved = true;
+        // closed out one at a time so a bond between two open sites ends once
+        for (int site = this.open.nextSetBit(0); site >= 0; site = this.open.nextSetBit(site + 1)) {
+            this.open.clear(site);
+            endSite(site, this.events);
+        }
+        int leaves = 1;
+        while (leaves < Math.max(this.events, 1)) {
+            leaves <<= 1;
+        }
+        // bucket the items by segment tree node, counting first then filling
+        int[] start = new int[2 * leaves + 1];
+        forEachNode(leaves, (node, item) -> start[node + 1]++);
+        for (int node = 0; node < 2 * leaves; node++) {
+            start[node + 1] += start[node];
+        }
+        int[] fill = Arrays.copyOf(start, 2 * leaves);
+        int[] bucket = new int[start[2 * leaves]];
+        forEachNode(leaves, (node, item) -> bucket[fill[node]++] = item);
+        // queries ordered by event so each leaf finds its own
+        Integer[] order = new Integer[this.queries];
+        for (int q = 0; q < this.queries; q++) {
+            order[q] = q;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(this.queryEvent[a], this.queryEvent[b]));
+        int[] byEvent = new int[this.queries];
+        for (int q = 0; q < this.queries; q++) {
+            byEvent[q] = order[q];
+        }
+        this.percolatesAfter = new BitSet(this.events);
+        this.fullAnswers = new BitSet(this.queries);
+        RollbackUnionFind unionFind = new RollbackUnionFind(this.gridSize * this.gridSize);
+        int next = 0;
+        while (next < this.queries && this.queryEvent[byEvent[next]] < 0) {
+            next++;
+        }
+        walk(1, 0, leaves, start, bucket, unionFind, byEvent, next);
+        this.itemFirst = null;
+        this.itemSecond = null;
+        this.itemStart = null;
+        this.itemEnd = null;
+    }
+
+    /*
+     * @return int the number of edges and flags stored over time ranges
+     */
+    int numberOfItems() {
+        return this.items;
+    }
+
+    /*
+     * @param int event - the 0 based event index
+     *
+     * @return boolean whether the system percolates after the event
+     */
+    public boolean percolates(int event) {
+        checkSolved();
+        if (event < 0 || event >= this.events) {
+            throw new IndexOutOfBoundsException("Error: percolates()");
+        }
+        return this.percolatesAfter.get(event);
+    }
+
+    /*
+     * @param int query - an id returned by queryFull
+     *
+     * @return boolean whether the site was full when the query was made
+     */
+    public boolean isFull(int query) {
+        checkSolved();
+        if (query < 0 || query >= this.queries) {
+            throw new IndexOutOfBoundsException("Error: isFull()");
+        }
+        return this.fullAnswers.get(query);
+    }
+
+    // apply the node's items, recurse or answer the leaf, then undo them
+    private int walk(int node, int from, int to, int[] start, int[] bucket, RollbackUnionFind unionFind,
+            int[] byEvent, int next) {
+        if (from >= this.events) {
+            return next;
+        }
+        int checkpoint = unionFind.checkpoint();
+        for (int k = start[node]; k < start[node + 1]; k++) {
+            int item = bucket[k];
+            if (this.itemSecond[item] < 0) {
+                unionFind.mark(this.itemFirst[item], -1 - this.itemSecond[item]);
+            } else {
+                unionFind.union(this.itemFirst[item], this.itemSecond[item]);
+            }
+        }
+        if (to - from == 1) {
+            if (unionFind.percolates()) {
+                this.percolatesAfter.set(from);
+            }
+            while (next < this.queries && this.queryEvent[byEvent[next]] == from) {
+                int query = byEvent[next++];
+                int site = this.querySite[query];
+                if (site != NEVER && (unionFind.status(site) & SiteUnionFind.TOP) != 0) {
+                    this.fullAnswers.set(query);
+                }
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            next = walk(2 * node, from, middle, start, bucket, unionFind, byEvent, next);
+            next = walk(2 * node + 1, middle, to, start, bucket, unionFind, byEvent, next);
+        }
+        unionFind.rollback(checkpoint);
+        return next;
+    }
+
+    private interface NodeItem {
+        void accept(int node, int item);
+    }
+
+    // the O(log T) segment tree nodes that exactly cover each item's range
+    private void forEachNode(int leaves, NodeItem action) {
+        for (int item = 0; item < this.items; item++) {
+            int low = this.itemStart[item] + leaves;
+            int high = this.itemEnd[item] + leaves;
+            while (low < high) {
+                if ((low & 1) == 1) {
+                    action.accept(low++, item);
+                }
+                if ((high & 1) == 1) {
+                    action.accept(--high, item);
+                }
+                low >>>= 1;
+                high >>>= 1;
+            }
+        }
+    }
+
+    // close the ranges of an open site's flags and edges at event end
+    private void endSite(int site, int end) {
+        int n = this.gridSize;
+        int since = this.openSince[site];
+        if (site < n) {
+            addItem(site, -1 - SiteUnionFind.TOP, since, end);
+        }
+        if (site >= n * (n - 1)) {
+            addItem(site, -1 - SiteUnionFind.BOTTOM, since, end);
+        }
+        forEachOpenNeighbour(site, (bond, neighbour) -> addItem(site, neighbour, this.joinedSince[bond], end));
+    }
+
+    private interface BondAction {
+        void accept(int bond, int neighbour);
+    }
+
+    /*
+     * Visit the open neighbours of a site with the bond between them, bond
+     * 2s is the bond from site s to its right and 2s + 1 the one below it.
+     */
+    private void forEachOpenNeighbour(int site, BondAction action) {
+        int n = this.gridSize;
+        int column = site % n;
+        if (site >= n && this.open.get(site - n)) {
+            action.accept(2 * (site - n) + 1, site - n);
+        }
+        if (site < n * (n - 1) && this.open.get(site + n)) {
+            action.accept(2 * site + 1, site + n);
+        }
+        if (column > 0 && this.open.get(site - 1)) {
+            action.accept(2 * (site - 1), site - 1);
+        }
+        if (column < n - 1 && this.open.get(site + 1)) {
+            action.accept(2 * site, site + 1);
+        }
+    }
+
+    private void addItem(int first, int second, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (this.items == this.itemFirst.length) {
+            int length = this.items * 2;
+            this.itemFirst = Arrays.copyOf(this.itemFirst, length);
+            this.itemSecond = Arrays.copyOf(this.itemSecond, length);
+            this.itemStart = Arrays.copyOf(this.itemStart, length);
+            this.itemEnd = Arrays.copyOf(this.itemEnd, length);
+        }
+        this.itemFirst[this.items] = first;
+        this.itemSecond[this.items] = second;
+        this.itemStart[this.items] = start;
+        this.itemEnd[this.items] = end;
+        this.items++;
+    }
+
+    private int site(int i, int j, String method) {
+        if (this.solved) {
+            throw new IllegalStateException("Error: " + method + " after solve()");
+        }
+        if (i <= 0 || i > this.gridSize || j <= 0 || j > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: " + method);
+        }
+        return (i - 1) * this.gridSize + (j - 1);
+    }
+
+    private void checkSolved() {
+        if (!this.solved) {
+            throw new IllegalStateException("Error: answers before solve()");
+        }
+    }
+}
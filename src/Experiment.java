@@ -0,0 +1,270 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * Experiment.java
+ */
+public class Experiment {
+
+    /*
+     * How the results are written. TEXT is for people, CSV has one row per
+     * trial, JSON writes one object per line: the spec, then every trial and
+     * a summary for each size.
+     */
+    public enum Format {
+        TEXT, CSV, JSON
+    }
+
+    private static final String[] KEYS = { "sizes", "trials", "seed", "engine", "backend", "threads", "format",
+            "out" };
+
+    private final int[] sizes;
+    private final int trials;
+    private final long seed;
+    private final PercolationStats.TrialMode engine;
+    private final Percolation.Backend backend;
+    private final int threads;
+    private final Format format;
+
+    /*
+     * Constructor for a set of runs of the same workload on each grid size.
+     * Every size uses the master seed as PercolationStats <N> <T> <seed> does,
+     * so trial k of a size draws from the same stream whatever the thread
+     * count, and the results of two runs of the same spec only differ in
+     * their timings.
+     *
+     * @param int[] sizes - the grid sizes n, each at least 2
+     *
+     * @param int trials - the number of trials per size
+     *
+     * @param long seed - the master seed for the trial random streams
+     *
+     * @param TrialMode engine - how each trial picks sites to open
+     *
+     * @param Backend backend - the union find of REJECTION and PERMUTATION
+     * trials, CRITICAL_INDEX only runs on FLAT
+     *
+     * @param int threads - the parallelism of the pool the trials run on
+     *
+     * @param Format format - how the results are written
+     */
+    public Experiment(int[] sizes, int trials, long seed, PercolationStats.TrialMode engine,
+            Percolation.Backend backend, int threads, Format format) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("Error: Experiment() no sizes");
+        }
+        for (int n : sizes) {
+            if (n <= 1) {
+                throw new IllegalArgumentException("Error: Experiment() size <= 1");
+            }
+        }
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Error: Experiment() trials <= 0");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Error: Experiment() threads <= 0");
+        }
+        if (engine == PercolationStats.TrialMode.CRITICAL_INDEX && backend != Percolation.Backend.FLAT) {
+            throw new IllegalArgumentException("Error: Experiment() CRITICAL_INDEX has no " + backend + " backend");
+        }
+        this.sizes = sizes.clone();
+        this.trials = trials;
+        this.seed = seed;
+        this.engine = engine;
+        this.backend = backend;
+        this.threads = threads;
+        this.format = format;
+    }
+
+    /*
+     * Read a spec from --key=value options, on top of the key=value lines of
+     * a --spec=file when one is given. Options left out take the defaults of
+     * PercolationStats: CRITICAL_INDEX on FLAT, one thread per processor and
+     * TEXT. A run without a seed gets one from the clock, the TEXT and JSON
+     * headers record it so the run can be repeated.
+     *
+     * @param String[] args - the options
+     *
+     * @return Properties the spec, with the keys of KEYS
+     */
+    static Properties parse(String[] args) throws IOException {
+        Properties spec = new Properties();
+        for (String arg : args) {
+            if (arg.startsWith("--spec=")) {
+                try (Reader in = Files.newBufferedReader(Paths.get(arg.substring(7)), StandardCharsets.UTF_8)) {
+                    spec.load(in);
+                }
+            }
+        }
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Error: parse() expected --key=value, got " + arg);
+            }
+            String key = arg.substring(2, equals);
+            if (!key.equals("spec")) {
+                spec.setProperty(key, arg.substring(equals + 1));
+            }
+        }
+        for (String key : spec.stringPropertyNames()) {
+            if (!Arrays.asList(KEYS).contains(key)) {
+                throw new IllegalArgumentException("Error: parse() unknown key " + key);
+            }
+        }
+        if (spec.getProperty("sizes") == null || spec.getProperty("trials") == null) {
+            throw new IllegalArgumentException("Error: parse() sizes and trials are required");
+        }
+        return spec;
+    }
+
+    /*
+     * @param Properties spec - the spec returned by parse
+     *
+     * @return Experiment the experiment the spec describes
+     */
+    static Experiment of(Properties spec) {
+        int[] sizes = Arrays.stream(spec.getProperty("sizes").split(",")).map(String::trim)
+                .mapToInt(Integer::parseInt).toArray();
+        String seed = spec.getProperty("seed");
+        String threads = spec.getProperty("threads");
+        return new Experiment(sizes, Integer.parseInt(spec.getProperty("trials").trim()),
+                seed == null ? System.nanoTime() : Long.parseLong(seed.trim()),
+                PercolationStats.TrialMode.valueOf(upper(spec.getProperty("engine", "CRITICAL_INDEX"))),
+                Percolation.Backend.valueOf(upper(spec.getProperty("backend", "FLAT"))),
+                threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads.trim()),
+                Format.valueOf(upper(spec.getProperty("format", "TEXT"))));
+    }
+
+    /*
+     * Run the trials of each size in turn and write them in trial order as the
+     * size completes, followed by the size's summary. Trials run in parallel
+     * but are written in order, so apart from the timings the output is the
+     * same for any thread count.
+     *
+     * @param PrintStream out - where the results are written
+     */
+    public void run(PrintStream out) {
+        writeSpec(out);
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        try {
+            int[] ids = IntStream.range(0, this.trials).toArray();
+            for (int n : this.sizes) {
+                double[] results = new double[this.trials];
+                long[] nanos = new long[this.trials];
+                long start = System.nanoTime();
+                Supplier<ParallelTrialRunner.Trial> factory = PercolationStats.trialFactory(n, this.engine,
+                        this.backend);
+                ParallelTrialRunner.run(pool, ids, this.seed, factory, (trial, trialSeed, result, elapsed) -> {
+                    results[trial] = result;
+                    nanos[trial] = elapsed;
+                });
+                long wall = System.nanoTime() - start;
+                RunningStats stats = new RunningStats();
+                for (int trial = 0; trial < this.trials; trial++) {
+                    stats.add(results[trial]);
+                    writeTrial(out, n, trial, (long) results[trial], nanos[trial]);
+                }
+                writeSummary(out, n, stats, wall);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        out.flush();
+    }
+
+    private void writeSpec(PrintStream out) {
+        String sizes = Arrays.stream(this.sizes).mapToObj(Integer::toString).collect(Collectors.joining(","));
+        if (this.format == Format.TEXT) {
+            out.printf(Locale.ROOT, "# sizes=%s trials=%d seed=%d engine=%s backend=%s threads=%d\n", sizes,
+                    this.trials, this.seed, this.engine, this.backend, this.threads);
+            out.println("n\ttrial\ttrial_seed\topen_sites\tthreshold\tms");
+        } else if (this.format == Format.CSV) {
+            out.println("n,trial,trial_seed,open_sites,threshold,elapsed_nanos");
+        } else {
+            out.printf(Locale.ROOT, "{\"record\":\"spec\",\"sizes\":[%s],\"trials\":%d,\"seed\":%d,"
+                    + "\"engine\":\"%s\",\"backend\":\"%s\",\"threads\":%d,\"java\":\"%s\"}\n", sizes, this.trials,
+                    this.seed, this.engine, this.backend, this.threads, System.getProperty("java.version"));
+        }
+    }
+
+    private void writeTrial(PrintStream out, int n, int trial, long openSites, long nanos) {
+        long trialSeed = ParallelTrialRunner.trialSeed(this.seed, trial);
+        double threshold = openSites / ((double) n * n);
+        if (this.format == Format.TEXT) {
+            out.printf(Locale.ROOT, "%d\t%d\t%d\t%d\t%.6f\t%.3f\n", n, trial, trialSeed, openSites, threshold,
+                    nanos / 1e6);
+        } else if (this.format == Format.CSV) {
+            out.printf(Locale.ROOT, "%d,%d,%d,%d,%s,%d\n", n, trial, trialSeed, openSites, threshold, nanos);
+        } else {
+            out.printf(Locale.ROOT, "{\"record\":\"trial\",\"n\":%d,\"trial\":%d,\"trial_seed\":%d,"
+                    + "\"open_sites\":%d,\"threshold\":%s,\"elapsed_nanos\":%d}\n", n, trial, trialSeed, openSites,
+                    threshold, nanos);
+        }
+    }
+
+    // CSV keeps to one row per trial, the summary follows from them
+    private void writeSummary(PrintStream out, int n, RunningStats stats, long wall) {
+        double sites = (double) n * n;
+        double mean = stats.mean();
+        double margin = stats.marginOfError();
+        if (this.format == Format.TEXT) {
+            out.printf(Locale.ROOT, "# n=%d threshold=%.6f stddev=%.6f 95%% confidence interval=%.6f, %.6f"
+                    + " wall=%.3f ms\n", n, mean / sites, stats.stddev() / sites, (mean - margin) / sites,
+                    (mean + margin) / sites, wall / 1e6);
+        } else if (this.format == Format.JSON) {
+            out.printf(Locale.ROOT, "{\"record\":\"summary\",\"n\":%d,\"trials\":%d,\"mean\":%s,\"stddev\":%s,"
+                    + "\"confidence_lo\":%s,\"confidence_hi\":%s,\"threshold\":%s,\"wall_nanos\":%d}\n", n,
+                    stats.count(), json(mean), json(stats.stddev()), json(mean - margin), json(mean + margin),
+                    json(mean / sites), wall);
+        }
+    }
+
+    // JSON has no NaN, the stddev of a single trial is written as null
+    private static String json(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static String upper(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /*
+     * Runs the experiment a spec describes without StdDraw or StdRandom, so
+     * it needs nothing but this code on the classpath, algs4.jar only for the
+     * WEIGHTED_QUICK_UNION backend.
+     *
+     * Usage: java Experiment --sizes=<n1,n2,...> --trials=<T> [--seed=<seed>]
+     * [--engine=CRITICAL_INDEX|PERMUTATION|REJECTION]
+     * [--backend=FLAT|WEIGHTED_QUICK_UNION] [--threads=<threads>]
+     * [--format=text|csv|json] [--out=<file>] [--spec=<file>]
+     */
+    public static void main(String[] args) throws IOException {
+        Properties spec = parse(args);
+        Experiment experiment = of(spec);
+        String out = spec.getProperty("out");
+        if (out == null) {
+            experiment.run(System.out);
+            return;
+        }
+        Path path = Paths.get(out.trim());
+        try (PrintStream stream = new PrintStream(path.toFile(), "UTF-8")) {
+            experiment.run(stream);
+        }
+    }
+}
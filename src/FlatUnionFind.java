@@ -0,0 +1,183 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * FlatUnionFind.java
+ */
+class FlatUnionFind implements SiteUnionFind {
+
+    // low bits of a state byte hold the rank, rank never exceeds log2(size)
+    static final int RANK_MASK = 0x1F;
+    static final int STATUS_MASK = TOP | BOTTOM;
+
+    private final int[] parent;
+    private final byte[] state;
+    private boolean percolates;
+    private final PercolationMetrics.Counts counts = PercolationMetrics.ENABLED ? new PercolationMetrics.Counts()
+            : null;
+
+    /*
+     * While recording every union and mark is logged with whether the union
+     * find percolated before it, the log is created on first use.
+     */
+    private boolean recording;
+    private UndoLog log;
+
+    /*
+     * Constructor creates a forest of single node trees, every node is its own
+     * root with rank 0 and no status bits.
+     *
+     * @param int size - the number of nodes in the union find array
+     */
+    FlatUnionFind(int size) {
+        this.parent = new int[size];
+        this.state = new byte[size];
+        for (int i = 0; i < size; i++) {
+            this.parent[i] = i;
+        }
+    }
+
+    /*
+     * Find the root using path halving, every node visited on the way up is
+     * pointed at its grandparent so the tree flattens as it is used. While
+     * recording the path is left alone, a rollback could otherwise strand a
+     * node under a root it was never linked to.
+     */
+    public int find(int p) {
+        int[] parent = this.parent;
+        int steps = 0;
+        if (this.recording) {
+            while (p != parent[p]) {
+                p = parent[p];
+                steps++;
+            }
+        } else {
+            while (p != parent[p]) {
+                parent[p] = parent[parent[p]];
+                p = parent[p];
+                steps++;
+            }
+        }
+        if (PercolationMetrics.ENABLED) {
+            this.counts.find(steps);
+        }
+        return p;
+    }
+
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /*
+     * Union by rank, the root of the shallower tree is linked under the root
+     * of the deeper one. The rank only grows when both trees are equal. The
+     * status bits of the absorbed root are or'ed into the surviving root.
+     */
+    public void union(int p, int q) {
+        if (PercolationMetrics.ENABLED) {
+            this.counts.union();
+        }
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+        int rankP = this.state[rootP] & RANK_MASK;
+        int rankQ = this.state[rootQ] & RANK_MASK;
+        int status = (this.state[rootP] | this.state[rootQ]) & STATUS_MASK;
+        int root;
+        if (rankP < rankQ) {
+            log(rootP, rootQ);
+            this.parent[rootP] = rootQ;
+            root = rootQ;
+        } else if (rankP > rankQ) {
+            log(rootQ, rootP);
+            this.parent[rootQ] = rootP;
+            root = rootP;
+        } else {
+            log(rootQ, rootP);
+            this.parent[rootQ] = rootP;
+            this.state[rootP]++;
+            root = rootP;
+        }
+        this.state[root] |= status;
+        if (status == STATUS_MASK) {
+            this.percolates = true;
+        }
+    }
+
+    // the root takes rank 1 if it had none, a fresh p adds no status
+    public void link(int p, int root) {
+        log(p, root);
+        this.parent[p] = root;
+        if ((this.state[root] & RANK_MASK) == 0) {
+            this.state[root]++;
+        }
+    }
+
+    public void mark(int site, int status) {
+        int root = find(site);
+        log(-1, root);
+        this.state[root] |= status;
+        if ((this.state[root] & STATUS_MASK) == STATUS_MASK) {
+            this.percolates = true;
+        }
+    }
+
+    public int status(int site) {
+        return this.state[find(site)] & STATUS_MASK;
+    }
+
+    public boolean percolates() {
+        return this.percolates;
+    }
+
+    public void reset(int site) {
+        this.parent[site] = site;
+        this.state[site] = 0;
+    }
+
+    public void finishReset() {
+        this.percolates = false;
+        discardLog();
+        publishMetrics();
+    }
+
+    public void publishMetrics() {
+        if (PercolationMetrics.ENABLED) {
+            this.counts.flush();
+        }
+    }
+
+    public int checkpoint() {
+        if (!this.recording) {
+            this.recording = true;
+            if (this.log == null) {
+                this.log = new UndoLog();
+            }
+        }
+        return this.log.size();
+    }
+
+    public void rollback(int checkpoint) {
+        if (!this.recording || checkpoint < 0 || checkpoint > this.log.size()) {
+            throw new IllegalArgumentException("Error: rollback() unknown checkpoint");
+        }
+        this.percolates = this.log.rollback(checkpoint, this.parent, this.state, this.percolates ? 1 : 0) != 0;
+    }
+
+    public void discardLog() {
+        this.recording = false;
+        if (this.log != null) {
+            this.log.clear();
+        }
+    }
+
+    // save the entries a union or mark is about to change, if recording
+    private void log(int linked, int root) {
+        if (this.recording) {
+            this.log.push(linked, root, this.state[root], this.percolates ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * HoshenKopelman.java
+ */
+public class HoshenKopelman {
+
+    private static final int TOP = 0x1;
+    private static final int BOTTOM = 0x2;
+    private static final int SPANNING = TOP | BOTTOM;
+    private static final int CLOSED = -1;
+
+    private final int gridSize;
+    private int row;
+
+    // labels of the previous and the current row, CLOSED for a closed site
+    private int[] previous;
+    private int[] current;
+
+    /*
+     * The label union find. Labels of the previous row are compacted to
+     * 0..k-1 at the end of every row and the current row allocates from k, a
+     * row has at most (n + 1) / 2 runs so n + 2 slots are always enough. The
+     * spare arrays receive the compacted labels.
+     */
+    private int[] parent;
+    private long[] size;
+    private byte[] flags;
+    private int[] spareParent;
+    private long[] spareSize;
+    private byte[] spareFlags;
+    private int[] remap;
+    private int labels;
+    private int previousLabels;
+
+    private final TreeMap<Long, Long> histogram = new TreeMap<Long, Long>();
+    private long openSites;
+    private long clusters;
+    private long spanningClusterSize;
+    private boolean percolates;
+    private boolean finished;
+
+    /*
+     * Constructor for a sweep over an n-by-n grid fed one row at a time from
+     * the top. Only two rows of labels and O(n) union find slots are kept, a
+     * cluster is counted as soon as a row no longer touches it.
+     *
+     * @param int n - the grid size
+     */
+    public HoshenKopelman(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Error: HoshenKopelman() n <= 0");
+        }
+        this.gridSize = n;
+        this.previous = new int[n];
+        this.current = new int[n];
+        Arrays.fill(this.previous, CLOSED);
+        int slots = n + 2;
+        this.parent = new int[slots];
+        this.size = new long[slots];
+        this.flags = new byte[slots];
+        this.spareParent = new int[slots];
+        this.spareSize = new long[slots];
+        this.spareFlags = new byte[slots];
+        this.remap = new int[slots];
+        Arrays.fill(this.remap, CLOSED);
+    }
+
+    /*
+     * Label a whole grid, convenience for grids already in memory.
+     *
+     * @param boolean[][] grid - n rows of n sites, true for open
+     *
+     * @return HoshenKopelman the finished sweep
+     */
+    public static HoshenKopelman analyze(boolean[][] grid) {
+        HoshenKopelman sweep = new HoshenKopelman(grid.length);
+        for (boolean[] row : grid) {
+            sweep.addRow(row);
+        }
+        return sweep.finish();
+    }
+
+    /*
+     * Add the next row as one boolean per site.
+     *
+     * @param boolean[] sites - n sites, true for open
+     */
+    public void addRow(boolean[] sites) {
+        checkRow(sites.length >= this.gridSize);
+        for (int column = 0; column < this.gridSize; column++) {
+            label(column, sites[column]);
+        }
+        endRow();
+    }
+
+    /*
+     * Add the next row bit packed, bit k of word w is column w * 64 + k, the
+     * layout of Percolation.copyRow.
+     *
+     * @param long[] bits - (n + 63) / 64 words
+     */
+    public void addRow(long[] bits) {
+        checkRow((long) bits.length << 6 >= this.gridSize);
+        for (int column = 0; column < this.gridSize; column++) {
+            label(column, (bits[column >>> 6] & (1L << column)) != 0);
+        }
+        endRow();
+    }
+
+    /*
+     * Count the clusters still touching the last row. Called after the n-th
+     * row, the results are only available afterwards.
+     *
+     * @return HoshenKopelman this sweep
+     */
+    public HoshenKopelman finish() {
+        if (this.row != this.gridSize) {
+            throw new IllegalStateException("Error: finish() after " + this.row + " of " + this.gridSize + " rows");
+        }
+        if (!this.finished) {
+            for (int label = 0; label < this.previousLabels; label++) {
+                if (this.parent[label] == label) {
+                    record(label);
+                }
+            }
+            this.finished = true;
+        }
+        return this;
+    }
+
+    public boolean percolates() {
+        checkFinished();
+        return this.percolates;
+    }
+
+    /*
+     * @return long the size of the largest cluster touching both the top and
+     * the bottom row, 0 if there is none
+     */
+    public long spanningClusterSize() {
+        checkFinished();
+        return this.spanningClusterSize;
+    }
+
+    public long numberOfClusters() {
+        checkFinished();
+        return this.clusters;
+    }
+
+    public long numberOfOpenSites() {
+        checkFinished();
+        return this.openSites;
+    }
+
+    /*
+     * @return SortedMap cluster size to the number of clusters of that size
+     */
+    public SortedMap<Long, Long> clusterSizeHistogram() {
+        checkFinished();
+        return Collections.unmodifiableSortedMap(this.histogram);
+    }
+
+    private void label(int column, boolean open) {
+        if (!open) {
+            this.current[column] = CLOSED;
+            return;
+        }
+        this.openSites++;
+        int left = column > 0 ? this.current[column - 1] : CLOSED;
+        int up = this.previous[column];
+        int label;
+        if (left == CLOSED && up == CLOSED) {
+            label = this.labels++;
+            this.parent[label] = label;
+            this.size[label] = 0;
+            this.flags[label] = 0;
+        } else if (up == CLOSED) {
+            label = find(left);
+        } else if (left == CLOSED) {
+            label = find(up);
+        } else {
+            label = union(left, up);
+        }
+        this.size[label]++;
+        if (this.row == 0) {
+            this.flags[label] |= TOP;
+        }
+        if (this.row == this.gridSize - 1) {
+            this.flags[label] |= BOTTOM;
+        }
+        this.current[column] = label;
+    }
+
+    /*
+     * Count the clusters of the previous row that the current row did not
+     * reach, then compact the current row's labels into 0..k-1.
+     */
+    private void endRow() {
+        int[] remap = this.remap;
+        int compacted = 0;
+        for (int column = 0; column < this.gridSize; column++) {
+            if (this.current[column] != CLOSED) {
+                int root = find(this.current[column]);
+                if (remap[root] == CLOSED) {
+                    remap[root] = compacted;
+                    this.spareParent[compacted] = compacted;
+                    this.spareSize[compacted] = this.size[root];
+                    this.spareFlags[compacted] = this.flags[root];
+                    compacted++;
+                }
+                this.current[column] = remap[root];
+            }
+        }
+        for (int label = 0; label < this.previousLabels; label++) {
+            if (this.parent[label] == label && remap[label] == CLOSED) {
+                record(label);
+            }
+        }
+        for (int label = 0; label < this.labels; label++) {
+            remap[label] = CLOSED;
+        }
+        int[] parent = this.parent;
+        long[] size = this.size;
+        byte[] flags = this.flags;
+        this.parent = this.spareParent;
+        this.size = this.spareSize;
+        this.flags = this.spareFlags;
+        this.spareParent = parent;
+        this.spareSize = size;
+        this.spareFlags = flags;
+        int[] previous = this.previous;
+        this.previous = this.current;
+        this.current = previous;
+        this.labels = compacted;
+        this.previousLabels = compacted;
+        this.row++;
+    }
+
+    private void record(int root) {
+        long clusterSize = this.size[root];
+        this.clusters++;
+        this.histogram.merge(clusterSize, 1L, Long::sum);
+        if ((this.flags[root] & SPANNING) == SPANNING) {
+            this.percolates = true;
+            this.spanningClusterSize = Math.max(this.spanningClusterSize, clusterSize);
+        }
+    }
+
+    // find with path halving
+    private int find(int label) {
+        int[] parent = this.parent;
+        while (label != parent[label]) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    // the larger cluster absorbs the smaller, labels stay few so no rank is kept
+    private int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return rootP;
+        }
+        if (this.size[rootP] < this.size[rootQ]) {
+            int swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+        }
+        this.parent[rootQ] = rootP;
+        this.size[rootP] += this.size[rootQ];
+        this.flags[rootP] |= this.flags[rootQ];
+        return rootP;
+    }
+
+    private void checkRow(boolean longEnough) {
+        if (this.row >= this.gridSize) {
+            throw new IllegalStateException("Error: addRow() more than " + this.gridSize + " rows");
+        }
+        if (!longEnough) {
+            throw new IllegalArgumentException("Error: addRow() row is shorter than n");
+        }
+    }
+
+    private void checkFinished() {
+        if (!this.finished) {
+            throw new IllegalStateException("Error: results before finish()");
+        }
+    }
+}
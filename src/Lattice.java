@@ -0,0 +1,27 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * Lattice.java
+ */
+public interface Lattice {
+
+    /*
+     * The neighbours of a site as flat index deltas in a row-major grid that
+     * is padded with one closed site on every side, so a neighbour off the
+     * edge lands on padding instead of needing a bounds check. Lattices whose
+     * neighbours depend on position, like the honeycomb, give deltas per
+     * parity of the zero based row and column. Called once per parity when an
+     * engine is built, the arrays are then used as they are on every open.
+     *
+     * @param int paddedWidth - the row stride of the padded grid, n + 2
+     *
+     * @param int rowParity - 0 for even rows, 1 for odd rows
+     *
+     * @param int columnParity - 0 for even columns, 1 for odd columns
+     *
+     * @return int[] the deltas, each neighbour once
+     */
+    int[] neighbourDeltas(int paddedWidth, int rowParity, int columnParity);
+}
@@ -0,0 +1,139 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * LatticePercolation.java
+ */
+public class LatticePercolation {
+
+    /*
+     * The grid is padded with a ring of sites that stay closed, row i and
+     * column j (1 based) are padded index i * (n + 2) + j. Each site is one
+     * int of a PackedUnionFind, as in CriticalIndexEngine.
+     */
+    private final int gridSize;
+    private final int width;
+    private final PackedUnionFind node;
+    private final int[][] deltas; // by (row parity << 1) | column parity
+    private int openSites;
+    private boolean percolates;
+
+    /*
+     * Constructor for site percolation on an n-by-n patch of the lattice,
+     * every site closed.
+     *
+     * @param int n - the grid size
+     *
+     * @param Lattice lattice - which sites are neighbours
+     */
+    public LatticePercolation(int n, Lattice lattice) {
+        if (n <= 1) {
+            throw new IllegalArgumentException("Error: LatticePercolation() n <= 1");
+        }
+        if ((long) (n + 2) * (n + 2) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: LatticePercolation() (n + 2)^2 overflows int");
+        }
+        this.gridSize = n;
+        this.width = n + 2;
+        this.node = new PackedUnionFind.Ints(this.width * this.width, null);
+        this.deltas = new int[4][];
+        for (int parity = 0; parity < 4; parity++) {
+            this.deltas[parity] = lattice.neighbourDeltas(this.width, parity >>> 1, parity & 1).clone();
+            for (int delta : this.deltas[parity]) {
+                if (Math.abs(delta) > this.width + 1) {
+                    throw new IllegalArgumentException("Error: LatticePercolation() neighbour further than one row");
+                }
+            }
+        }
+    }
+
+    /*
+     * Open the site at row i and column j and union it with its open
+     * neighbours.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     */
+    public void open(int i, int j) {
+        validate(i, j, "open()");
+        openSite(i, j);
+    }
+
+    /*
+     * Open a site given its flat index, (i - 1) * n + (j - 1).
+     *
+     * @param int site - the flat index of the site, 0 to n^2 - 1
+     */
+    public void open(int site) {
+        if (site < 0 || site >= this.gridSize * this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: open()");
+        }
+        int row = site / this.gridSize;
+        openSite(row + 1, site - row * this.gridSize + 1);
+    }
+
+    public boolean isOpen(int i, int j) {
+        validate(i, j, "isOpen()");
+        return this.node.isOpen(i * this.width + j);
+    }
+
+    /*
+     * Check if the site is open and connected to the top row.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     *
+     * @return boolean isFull site status
+     */
+    public boolean isFull(int i, int j) {
+        validate(i, j, "isFull()");
+        int site = i * this.width + j;
+        return this.node.isOpen(site) && this.node.hasStatus(site, PackedUnionFind.TOP);
+    }
+
+    public boolean percolates() {
+        return this.percolates;
+    }
+
+    public int numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    /*
+     * The padding is closed so the neighbour loop has no edge cases, only the
+     * first and last rows need a check to flag the top and the bottom.
+     */
+    private void openSite(int i, int j) {
+        PackedUnionFind node = this.node;
+        int site = i * this.width + j;
+        if (node.isOpen(site)) {
+            return;
+        }
+        boolean spans = false;
+        node.open(site);
+        this.openSites++;
+        if (i == 1) {
+            spans |= node.mark(site, PackedUnionFind.TOP);
+        }
+        if (i == this.gridSize) {
+            spans |= node.mark(site, PackedUnionFind.BOTTOM);
+        }
+        for (int delta : this.deltas[((i - 1) & 1) << 1 | ((j - 1) & 1)]) {
+            if (node.isOpen(site + delta)) {
+                spans |= node.union(site, site + delta);
+            }
+        }
+        if (spans) {
+            this.percolates = true;
+        }
+    }
+
+    private void validate(int row, int column, String method) {
+        if (row <= 0 || row > this.gridSize || column <= 0 || column > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: " + method);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * Lattices.java
+ */
+public enum Lattices implements Lattice {
+
+    // the four nearest neighbours, the lattice Percolation uses
+    SQUARE_4 {
+        public int[] neighbourDeltas(int w, int rowParity, int columnParity) {
+            return new int[] { -w, w, -1, 1 };
+        }
+    },
+
+    // the Moore neighbourhood, the diagonals as well
+    SQUARE_8 {
+        public int[] neighbourDeltas(int w, int rowParity, int columnParity) {
+            return new int[] { -w, w, -1, 1, -w - 1, -w + 1, w - 1, w + 1 };
+        }
+    },
+
+    // a sheared square grid, one diagonal added makes six neighbours
+    TRIANGULAR {
+        public int[] neighbourDeltas(int w, int rowParity, int columnParity) {
+            return new int[] { -w, w, -1, 1, -w + 1, w - 1 };
+        }
+    },
+
+    // the honeycomb as a brick wall, left, right and one of up or down
+    HEXAGONAL {
+        public int[] neighbourDeltas(int w, int rowParity, int columnParity) {
+            return new int[] { -1, 1, (rowParity ^ columnParity) == 0 ? w : -w };
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * MappedArray.java
+ */
+class MappedArray implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+
+    /*
+     * Constructor maps a new scratch file of the given length in chunks, a
+     * single MappedByteBuffer cannot be larger than 2GB. The file gets a
+     * unique name in the directory, so any number of arrays can share it, it
+     * grows sparse so every byte reads as zero until written and it is
+     * deleted on close.
+     *
+     * @param Path directory - where the backing file is created
+     *
+     * @param String prefix - the start of the backing file's name
+     *
+     * @param long length - the number of bytes to map
+     *
+     * @param int chunkShift - log2 of the chunk size, at least 3 so a long
+     * never straddles two chunks
+     */
+    MappedArray(Path directory, String prefix, long length, int chunkShift) throws IOException {
+        Path file = Files.createTempFile(directory, prefix, ".bin");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        int count = (int) ((length + this.chunkMask) >>> chunkShift);
+        this.chunks = new MappedByteBuffer[Math.max(count, 1)];
+        try {
+            for (int i = 0; i < this.chunks.length; i++) {
+                long position = (long) i << chunkShift;
+                long size = Math.min(1L << chunkShift, length - position);
+                this.chunks[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(size, 0));
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    byte getByte(long offset) {
+        return this.chunks[(int) (offset >>> this.chunkShift)].get((int) (offset & this.chunkMask));
+    }
+
+    void putByte(long offset, byte value) {
+        this.chunks[(int) (offset >>> this.chunkShift)].put((int) (offset & this.chunkMask), value);
+    }
+
+    long getLong(long offset) {
+        return this.chunks[(int) (offset >>> this.chunkShift)].getLong((int) (offset & this.chunkMask));
+    }
+
+    void putLong(long offset, long value) {
+        this.chunks[(int) (offset >>> this.chunkShift)].putLong((int) (offset & this.chunkMask), value);
+    }
+
+    /*
+     * Close the channel, deleting the file. The mappings stay valid until the
+     * buffers are collected, there is no supported way to unmap them sooner.
+     */
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
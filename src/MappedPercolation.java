@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * MappedPercolation.java
+ */
+public class MappedPercolation implements AutoCloseable {
+
+    // 1GB chunks, a multiple of 8 so no long crosses a chunk boundary
+    private static final int CHUNK_SHIFT = 30;
+
+    // low bits of a state byte hold the rank, rank never exceeds log2(n^2) < 64
+    private static final int RANK_MASK = 0x3F;
+    private static final int TOP = 0x40;
+    private static final int BOTTOM = 0x80;
+    private static final int STATUS_MASK = TOP | BOTTOM;
+
+    private final int gridSize;
+    private final MappedArray openBits; // one bit per site
+    private final MappedArray parent; // one long per site, parent index + 1, 0 for a root
+    private final MappedArray state; // one byte per site, rank and status bits of roots
+    private boolean percolates;
+
+    /*
+     * Constructor for an n-by-n grid whose sites live in memory mapped scratch
+     * files in the given directory rather than on the heap. Indexes are longs
+     * so n is only limited by the disk, 100,000 needs about 100GB. The files
+     * get unique names, grids can share a directory, start sparse and are
+     * deleted on close.
+     *
+     * @param int n - the grid size
+     *
+     * @param Path directory - where the scratch files are created
+     */
+    public MappedPercolation(int n, Path directory) throws IOException {
+        this(n, directory, CHUNK_SHIFT);
+    }
+
+    /*
+     * Constructor with the mapping chunk size exposed so tests can cross chunk
+     * boundaries on small grids.
+     */
+    MappedPercolation(int n, Path directory, int chunkShift) throws IOException {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Error: MappedPercolation() n <= 0");
+        }
+        if (n == 1) {
+            throw new IllegalArgumentException("Error: MappedPercolation() n == 1");
+        }
+        this.gridSize = n;
+        long sites = (long) n * n;
+        Files.createDirectories(directory);
+        MappedArray openBits = new MappedArray(directory, "open", (sites + 7) >>> 3, chunkShift);
+        MappedArray parent = null;
+        try {
+            parent = new MappedArray(directory, "parent", sites << 3, chunkShift);
+            this.state = new MappedArray(directory, "state", sites, chunkShift);
+        } catch (IOException | RuntimeException e) {
+            // close what was mapped so a failed constructor leaves no files behind
+            if (parent != null) {
+                parent.close();
+            }
+            openBits.close();
+            throw e;
+        }
+        this.openBits = openBits;
+        this.parent = parent;
+    }
+
+    /*
+     * Open a site and union it with each open neighbour. Sites in the top and
+     * bottom rows flag their component as touching the top or the bottom.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     */
+    public void open(int i, int j) {
+        validate(i, j, "open()");
+        long n = this.gridSize;
+        long site = convertIndex(i, j);
+        this.openBits.putByte(site >>> 3, (byte) (this.openBits.getByte(site >>> 3) | (1 << (site & 7))));
+        if (i == 1) {
+            mark(site, TOP);
+        } else {
+            connect(site, site - n);
+        }
+        if (i == this.gridSize) {
+            mark(site, BOTTOM);
+        } else {
+            connect(site, site + n);
+        }
+        if (j > 1) {
+            connect(site, site - 1);
+        }
+        if (j < this.gridSize) {
+            connect(site, site + 1);
+        }
+    }
+
+    public boolean isOpen(int i, int j) {
+        validate(i, j, "isOpen()");
+        return isOpen(convertIndex(i, j));
+    }
+
+    public boolean isFull(int i, int j) {
+        validate(i, j, "isFull()");
+        long site = convertIndex(i, j);
+        return isOpen(site) && (this.state.getByte(find(site)) & TOP) != 0;
+    }
+
+    public boolean percolates() {
+        return this.percolates;
+    }
+
+    /*
+     * Close and delete the scratch files.
+     */
+    public void close() throws IOException {
+        try {
+            this.openBits.close();
+        } finally {
+            try {
+                this.parent.close();
+            } finally {
+                this.state.close();
+            }
+        }
+    }
+
+    private boolean isOpen(long site) {
+        return (this.openBits.getByte(site >>> 3) & (1 << (site & 7))) != 0;
+    }
+
+    private void connect(long site, long neighbour) {
+        if (isOpen(neighbour)) {
+            union(site, neighbour);
+        }
+    }
+
+    private long parentOf(long p) {
+        long stored = this.parent.getLong(p << 3);
+        return stored == 0 ? p : stored - 1;
+    }
+
+    private void setParent(long p, long root) {
+        this.parent.putLong(p << 3, root + 1);
+    }
+
+    // find with path halving
+    private long find(long p) {
+        long parent = parentOf(p);
+        while (p != parent) {
+            long grandparent = parentOf(parent);
+            setParent(p, grandparent);
+            p = grandparent;
+            parent = parentOf(p);
+        }
+        return p;
+    }
+
+    private void mark(long site, int status) {
+        long root = find(site);
+        int bits = this.state.getByte(root) | status;
+        this.state.putByte(root, (byte) bits);
+        if ((bits & STATUS_MASK) == STATUS_MASK) {
+            this.percolates = true;
+        }
+    }
+
+    // union by rank, the surviving root takes the status bits of both
+    private void union(long p, long q) {
+        long rootP = find(p);
+        long rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+        int stateP = this.state.getByte(rootP);
+        int stateQ = this.state.getByte(rootQ);
+        int status = (stateP | stateQ) & STATUS_MASK;
+        int rankP = stateP & RANK_MASK;
+        int rankQ = stateQ & RANK_MASK;
+        if (rankP < rankQ) {
+            setParent(rootP, rootQ);
+            this.state.putByte(rootQ, (byte) (rankQ | status));
+        } else {
+            setParent(rootQ, rootP);
+            this.state.putByte(rootP, (byte) ((rankP == rankQ ? rankP + 1 : rankP) | status));
+        }
+        if (status == STATUS_MASK) {
+            this.percolates = true;
+        }
+    }
+
+    private long convertIndex(int row, int column) {
+        return (long) (row - 1) * this.gridSize + (column - 1);
+    }
+
+    private void validate(int row, int column, String method) {
+        if (row <= 0 || row > this.gridSize || column <= 0 || column > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: " + method);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * PackedUnionFind.java
+ */
+abstract class PackedUnionFind {
+
+    /*
+     * Each site is a single value so an open check, a parent link and the rank
+     * and status of a root all come from one cache line. A non-negative value
+     * is the parent of the site, CLOSED marks a closed site and any other
+     * negative value is a root holding -1 - (rank | status bits). The status
+     * bits stand in for virtual top and bottom nodes. CLOSED fits an int, so
+     * Ints keeps one int per site and Pages one long per site for more sites
+     * than an int can index, both with the same encoding.
+     */
+    static final long CLOSED = Integer.MIN_VALUE;
+    static final long TOP = 0x40;
+    static final long BOTTOM = 0x80;
+    private static final long RANK_MASK = 0x3F;
+    private static final long SPANNING = TOP | BOTTOM;
+
+    // null when the owner does not count, only read with metrics on
+    private final PercolationMetrics.Counts counts;
+
+    PackedUnionFind(PercolationMetrics.Counts counts) {
+        this.counts = counts;
+    }
+
+    abstract long get(long site);
+
+    abstract void set(long site, long value);
+
+    /*
+     * Close every site.
+     */
+    abstract void closeAll();
+
+    boolean isOpen(long site) {
+        return get(site) != CLOSED;
+    }
+
+    /*
+     * Open a closed site as a root of its own, rank 0 and no status.
+     */
+    void open(long site) {
+        set(site, -1);
+    }
+
+    void close(long site) {
+        set(site, CLOSED);
+    }
+
+    /*
+     * @param long site - an open site
+     *
+     * @param long status - TOP or BOTTOM
+     *
+     * @return boolean whether the root of the site has the status
+     */
+    boolean hasStatus(long site, long status) {
+        return ((-1 - get(find(site))) & status) != 0;
+    }
+
+    // find with path halving, roots are the only negative values on the path
+    long find(long p) {
+        if (PercolationMetrics.ENABLED && this.counts != null) {
+            return countedFind(p);
+        }
+        long parent;
+        while ((parent = get(p)) >= 0) {
+            long grandparent = get(parent);
+            if (grandparent >= 0) {
+                set(p, grandparent);
+            }
+            p = parent;
+        }
+        return p;
+    }
+
+    // the same find counting its steps, kept apart so the plain loop is untouched
+    private long countedFind(long p) {
+        int steps = 0;
+        long parent;
+        while ((parent = get(p)) >= 0) {
+            long grandparent = get(parent);
+            if (grandparent >= 0) {
+                set(p, grandparent);
+            }
+            p = parent;
+            steps++;
+        }
+        this.counts.find(steps);
+        return p;
+    }
+
+    /*
+     * Add a status to the root of an open site.
+     *
+     * @param long site - an open site
+     *
+     * @param long status - TOP or BOTTOM
+     *
+     * @return boolean whether the root now has both statuses
+     */
+    boolean mark(long site, long status) {
+        long root = find(site);
+        long bits = (-1 - get(root)) | status;
+        set(root, -1 - bits);
+        return (bits & SPANNING) == SPANNING;
+    }
+
+    /*
+     * Union by rank of two open sites, the surviving root takes the status
+     * bits of both.
+     *
+     * @return boolean whether the joined root has both statuses
+     */
+    boolean union(long p, long q) {
+        if (PercolationMetrics.ENABLED && this.counts != null) {
+            this.counts.union();
+        }
+        long rootP = find(p);
+        long rootQ = find(q);
+        if (rootP == rootQ) {
+            return false;
+        }
+        long bitsP = -1 - get(rootP);
+        long bitsQ = -1 - get(rootQ);
+        long status = (bitsP | bitsQ) & SPANNING;
+        long rankP = bitsP & RANK_MASK;
+        long rankQ = bitsQ & RANK_MASK;
+        if (rankP < rankQ) {
+            set(rootP, rootQ);
+            set(rootQ, -1 - (rankQ | status));
+        } else {
+            set(rootQ, rootP);
+            set(rootP, -1 - ((rankP == rankQ ? rankP + 1 : rankP) | status));
+        }
+        return status == SPANNING;
+    }
+
+    /*
+     * One int per site, for up to Integer.MAX_VALUE sites.
+     */
+    static final class Ints extends PackedUnionFind {
+
+        private final int[] node;
+
+        /*
+         * @param int sites - the number of sites, every one closed
+         *
+         * @param Counts counts - where finds and unions are counted with
+         * metrics on, null for none
+         */
+        Ints(int sites, PercolationMetrics.Counts counts) {
+            super(counts);
+            this.node = new int[sites];
+            closeAll();
+        }
+
+        long get(long site) {
+            return this.node[(int) site];
+        }
+
+        void set(long site, long value) {
+            this.node[(int) site] = (int) value;
+        }
+
+        void closeAll() {
+            Arrays.fill(this.node, (int) CLOSED);
+        }
+    }
+
+    /*
+     * One long per site in pages of PAGE_SIZE longs, so the site count can
+     * pass what an int indexes and no single array gets too large.
+     */
+    static final class Pages extends PackedUnionFind {
+
+        private static final int PAGE_SHIFT = 20;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+        private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+        private final long[][] pages;
+
+        /*
+         * @param long sites - the number of sites, every one closed
+         */
+        Pages(long sites) {
+            super(null);
+            long pageCount = (sites + PAGE_MASK) >>> PAGE_SHIFT;
+            if (pageCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Error: Pages() too many sites");
+            }
+            this.pages = new long[(int) pageCount][];
+            for (int page = 0; page < pageCount; page++) {
+                long length = Math.min(PAGE_SIZE, sites - ((long) page << PAGE_SHIFT));
+                this.pages[page] = new long[(int) length];
+            }
+            closeAll();
+        }
+
+        long get(long site) {
+            return this.pages[(int) (site >>> PAGE_SHIFT)][(int) site & PAGE_MASK];
+        }
+
+        void set(long site, long value) {
+            this.pages[(int) (site >>> PAGE_SHIFT)][(int) site & PAGE_MASK] = value;
+        }
+
+        // one fill per page
+        void closeAll() {
+            for (long[] page : this.pages) {
+                Arrays.fill(page, CLOSED);
+            }
+        }
+    }
+}
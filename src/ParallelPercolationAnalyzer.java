@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * ParallelPercolationAnalyzer.java
+ */
+public class ParallelPercolationAnalyzer {
+
+    // aim for strips of about this many sites, labels take 9 bytes a site, about 36MB a strip
+    private static final int STRIP_SITES = 1 << 22;
+
+    private final int gridSize;
+    private final long[][] rows;
+    private final int stripHeight;
+    private final int strips;
+    private final SiteBits full;
+    private final boolean percolates;
+
+    /*
+     * The boundary union find. Each strip owns 2n nodes, its top row sites
+     * then its bottom row sites. representative[node] is the first boundary
+     * node of the same strip local component, -1 for a closed site, and
+     * topConnected has a bit per node once the merge is done.
+     */
+    private final int[] representative;
+    private long[] topConnected;
+
+    /*
+     * Constructor analyzes a whole open/closed snapshot on the pool. The grid
+     * is cut into horizontal strips that are labeled independently, the top
+     * and bottom rows of every strip are merged in a small boundary union find
+     * that decides percolation, then every strip is labeled again to write out
+     * which sites are full. Only the strips being worked on hold labels, a
+     * union find over the strip's sites and a root to boundary node map, so
+     * memory beyond the input is a bit per site, 2n ints per strip for the
+     * boundary and O(strip sites) for each strip in flight, at most one per
+     * pool thread.
+     *
+     * @param long[][] rows - n rows in the layout of Percolation.copyRow
+     *
+     * @param ForkJoinPool pool - the pool to label strips on
+     */
+    public ParallelPercolationAnalyzer(long[][] rows, ForkJoinPool pool) {
+        this(rows, pool, Math.max(1, Math.min(rows.length, STRIP_SITES / Math.max(rows.length, 1))));
+    }
+
+    /*
+     * Constructor with the strip height exposed so tests can use many strips
+     * on small grids.
+     */
+    ParallelPercolationAnalyzer(long[][] rows, ForkJoinPool pool, int stripHeight) {
+        int n = rows.length;
+        if (n <= 1) {
+            throw new IllegalArgumentException("Error: ParallelPercolationAnalyzer() n <= 1");
+        }
+        for (long[] row : rows) {
+            if ((long) row.length << 6 < n) {
+                throw new IllegalArgumentException("Error: ParallelPercolationAnalyzer() row is shorter than n");
+            }
+        }
+        if (stripHeight <= 0) {
+            throw new IllegalArgumentException("Error: ParallelPercolationAnalyzer() stripHeight <= 0");
+        }
+        this.gridSize = n;
+        this.rows = rows;
+        this.stripHeight = stripHeight;
+        this.strips = (n + stripHeight - 1) / stripHeight;
+        this.full = new SiteBits(n);
+        this.representative = new int[Math.multiplyExact(this.strips, 2 * n)];
+
+        pool.invoke(new StripRange(0, this.strips, this::linkBoundary));
+        this.percolates = mergeBoundaries();
+        pool.invoke(new StripRange(0, this.strips, this::markFull));
+    }
+
+    public boolean percolates() {
+        return this.percolates;
+    }
+
+    /*
+     * Check if the site is open and connected to the top row, the same answer
+     * Percolation.isFull gives for the same open sites.
+     *
+     * @param int i - the row in the percolation grid
+     *
+     * @param int j - the column in the percolation grid
+     *
+     * @return boolean isFull site status
+     */
+    public boolean isFull(int i, int j) {
+        if (i <= 0 || i > this.gridSize || j <= 0 || j > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: isFull()");
+        }
+        return this.full.get(i - 1, j - 1);
+    }
+
+    /*
+     * Copy the full bits of row i into out, laid out as Percolation.copyRow.
+     */
+    public void copyFullRow(int i, long[] out) {
+        if (i <= 0 || i > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: copyFullRow()");
+        }
+        this.full.copyRow(i - 1, out);
+    }
+
+    private boolean isOpen(int row, int column) {
+        return (this.rows[row][column >>> 6] & (1L << column)) != 0;
+    }
+
+    /*
+     * Union the open sites of strip s with their left and upper neighbours in
+     * the same strip, the strip's own rows are a private index space.
+     */
+    private FlatUnionFind label(int strip) {
+        int n = this.gridSize;
+        int first = strip * this.stripHeight;
+        int height = Math.min(this.stripHeight, n - first);
+        FlatUnionFind unionFind = new FlatUnionFind(height * n);
+        for (int r = 0; r < height; r++) {
+            for (int column = 0; column < n; column++) {
+                if (!isOpen(first + r, column)) {
+                    continue;
+                }
+                int site = r * n + column;
+                if (column > 0 && isOpen(first + r, column - 1)) {
+                    unionFind.union(site, site - 1);
+                }
+                if (r > 0 && isOpen(first + r - 1, column)) {
+                    unionFind.union(site, site - n);
+                }
+            }
+        }
+        return unionFind;
+    }
+
+    /*
+     * Give every open boundary site of strip s the first boundary node seen
+     * for its local component, through rootNode which maps local roots to
+     * boundary nodes. Returns the map for markFull to reuse.
+     */
+    private int[] boundaryNodes(int strip, FlatUnionFind unionFind, boolean linkRepresentatives) {
+        int n = this.gridSize;
+        int first = strip * this.stripHeight;
+        int height = Math.min(this.stripHeight, n - first);
+        int[] rootNode = new int[height * n];
+        Arrays.fill(rootNode, -1);
+        int base = strip * 2 * n;
+        for (int side = 0; side < 2; side++) {
+            int r = side == 0 ? 0 : height - 1;
+            for (int column = 0; column < n; column++) {
+                int node = base + side * n + column;
+                if (!isOpen(first + r, column)) {
+                    if (linkRepresentatives) {
+                        this.representative[node] = -1;
+                    }
+                    continue;
+                }
+                int root = unionFind.find(r * n + column);
+                if (rootNode[root] < 0) {
+                    rootNode[root] = node;
+                }
+                if (linkRepresentatives) {
+                    this.representative[node] = rootNode[root];
+                }
+            }
+        }
+        return rootNode;
+    }
+
+    private void linkBoundary(int strip) {
+        FlatUnionFind unionFind = label(strip);
+        boundaryNodes(strip, unionFind, true);
+        unionFind.publishMetrics();
+    }
+
+    /*
+     * Join the boundary nodes of each strip to their representatives and to
+     * the open sites directly below them in the next strip, flag the top and
+     * bottom rows of the grid and record which nodes reach the top.
+     */
+    private boolean mergeBoundaries() {
+        int n = this.gridSize;
+        int nodes = this.representative.length;
+        FlatUnionFind boundary = new FlatUnionFind(nodes);
+        for (int node = 0; node < nodes; node++) {
+            if (this.representative[node] >= 0 && this.representative[node] != node) {
+                boundary.union(node, this.representative[node]);
+            }
+        }
+        for (int strip = 0; strip + 1 < this.strips; strip++) {
+            int bottom = strip * 2 * n + n;
+            int top = (strip + 1) * 2 * n;
+            for (int column = 0; column < n; column++) {
+                if (this.representative[bottom + column] >= 0 && this.representative[top + column] >= 0) {
+                    boundary.union(bottom + column, top + column);
+                }
+            }
+        }
+        int lastBottom = (this.strips - 1) * 2 * n + n;
+        for (int column = 0; column < n; column++) {
+            if (this.representative[column] >= 0) {
+                boundary.mark(column, SiteUnionFind.TOP);
+            }
+            if (this.representative[lastBottom + column] >= 0) {
+                boundary.mark(lastBottom + column, SiteUnionFind.BOTTOM);
+            }
+        }
+        this.topConnected = new long[(nodes + 63) >>> 6];
+        for (int node = 0; node < nodes; node++) {
+            if (this.representative[node] >= 0 && (boundary.status(node) & SiteUnionFind.TOP) != 0) {
+                this.topConnected[node >>> 6] |= 1L << node;
+            }
+        }
+        boundary.publishMetrics();
+        return boundary.percolates();
+    }
+
+    /*
+     * Label strip s again and mark every open site whose local component has
+     * a boundary node connected to the top. A component that reaches no
+     * boundary row cannot reach the top row, which is a boundary of strip 0.
+     */
+    private void markFull(int strip) {
+        int n = this.gridSize;
+        int first = strip * this.stripHeight;
+        int height = Math.min(this.stripHeight, n - first);
+        FlatUnionFind unionFind = label(strip);
+        int[] rootNode = boundaryNodes(strip, unionFind, false);
+        for (int r = 0; r < height; r++) {
+            for (int column = 0; column < n; column++) {
+                if (!isOpen(first + r, column)) {
+                    continue;
+                }
+                int node = rootNode[unionFind.find(r * n + column)];
+                if (node >= 0 && (this.topConnected[node >>> 6] & (1L << node)) != 0) {
+                    this.full.set(first + r, column);
+                }
+            }
+        }
+        unionFind.publishMetrics();
+    }
+
+    /*
+     * Runs the action for every strip in [from, to), halving the range until
+     * one strip is left so the pool can balance uneven strips.
+     */
+    private static class StripRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        StripRange(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                this.action.accept(this.from);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new StripRange(this.from, middle, this.action), new StripRange(middle, this.to, this.action));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * ParallelTrialRunner.java
+ */
+class ParallelTrialRunner {
+
+    // SplitMix64 increment, spreads consecutive trial numbers across the seed space
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // smallest range of trials a task will split further
+    private static final int LEAF_SIZE = 4;
+
+    /*
+     * A single experiment. The random stream passed in belongs to the trial so
+     * the result only depends on the master seed and the trial number.
+     */
+    interface Trial {
+        double run(SplittableRandom random);
+    }
+
+    /*
+     * Receives each trial as it completes, on the worker thread that ran it.
+     */
+    interface TrialSink {
+        void completed(int trial, long trialSeed, double result, long elapsedNanos);
+    }
+
+    private ParallelTrialRunner() {
+    }
+
+    /*
+     * The trials of one run, made by the factory the first time a worker
+     * thread asks and reused by that thread until clear(). Keyed by thread
+     * for the run only, so a pool that outlives the run, the common pool
+     * included, does not keep a grid per worker once the run is over.
+     */
+    static final class PerWorker implements Supplier<Trial> {
+
+        private final Map<Thread, Trial> trials = new ConcurrentHashMap<>();
+        private final Supplier<? extends Trial> factory;
+
+        PerWorker(Supplier<? extends Trial> factory) {
+            this.factory = factory;
+        }
+
+        public Trial get() {
+            return this.trials.computeIfAbsent(Thread.currentThread(), thread -> this.factory.get());
+        }
+
+        void clear() {
+            this.trials.clear();
+        }
+    }
+
+    /*
+     * Run the trials on the pool and collect the result of each one at its
+     * trial index. Trials are split into ranges that the pool load balances.
+     * Each worker thread asks the factory for one Trial and reuses it for the
+     * rest of the run, so trials can keep scratch state without sharing it
+     * between threads, and the Trials are dropped when the run returns.
+     *
+     * @param ForkJoinPool pool - the pool to run the trials on
+     *
+     * @param int trials - the number of trials to run
+     *
+     * @param long seed - the master seed all trial streams are derived from
+     *
+     * @param Supplier factory - creates the Trial each worker thread reuses
+     *
+     * @return double[] the result of each trial
+     */
+    static double[] run(ForkJoinPool pool, int trials, long seed, Supplier<? extends Trial> factory) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Error: run() trials <= 0");
+        }
+        double[] results = new double[trials];
+        PerWorker perWorker = new PerWorker(factory);
+        try {
+            pool.invoke(new TrialRange(null, 0, trials, seed, perWorker,
+                    (trial, trialSeed, result, elapsedNanos) -> results[trial] = result));
+        } finally {
+            perWorker.clear();
+        }
+        return results;
+    }
+
+    /*
+     * Run the listed trials on the pool and hand each result to the sink as it
+     * completes, in no particular order. Used to run only the trials a
+     * resumed campaign is still missing.
+     *
+     * @param ForkJoinPool pool - the pool to run the trials on
+     *
+     * @param int[] trials - the trial indices to run
+     *
+     * @param long seed - the master seed all trial streams are derived from
+     *
+     * @param Supplier factory - creates the Trial each worker thread reuses
+     *
+     * @param TrialSink sink - receives every completed trial
+     */
+    static void run(ForkJoinPool pool, int[] trials, long seed, Supplier<? extends Trial> factory, TrialSink sink) {
+        if (trials.length == 0) {
+            return;
+        }
+        PerWorker perWorker = new PerWorker(factory);
+        try {
+            pool.invoke(new TrialRange(trials, 0, trials.length, seed, perWorker, sink));
+        } finally {
+            perWorker.clear();
+        }
+    }
+
+    /*
+     * Derive the random stream for a trial from the master seed. The stream
+     * is a pure function of (seed, trial) so the results are the same whatever
+     * the number of threads or the order the trials happen to run in.
+     *
+     * @param long seed - the master seed
+     *
+     * @param int trial - the trial index
+     *
+     * @return SplittableRandom the random stream for the trial
+     */
+    static SplittableRandom streamFor(long seed, long trial) {
+        return new SplittableRandom(trialSeed(seed, trial));
+    }
+
+    /*
+     * The seed of the random stream of a trial, recorded in trial logs so a
+     * single trial can be rerun on its own.
+     */
+    static long trialSeed(long seed, long trial) {
+        return mix64(seed + (trial + 1) * GOLDEN_GAMMA);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class TrialRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] trials; // null for trials from..to themselves
+        private final int from;
+        private final int to;
+        private final long seed;
+        private final Supplier<? extends Trial> factory;
+        private final TrialSink sink;
+
+        TrialRange(int[] trials, int from, int to, long seed, Supplier<? extends Trial> factory, TrialSink sink) {
+            this.trials = trials;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.factory = factory;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= LEAF_SIZE) {
+                Trial trial = this.factory.get();
+                for (int i = this.from; i < this.to; i++) {
+                    int index = this.trials == null ? i : this.trials[i];
+                    long trialSeed = trialSeed(this.seed, index);
+                    long cpuStart = PercolationMetrics.ENABLED ? PercolationMetrics.threadCpuNanos() : 0;
+                    long start = System.nanoTime();
+                    double result = trial.run(new SplittableRandom(trialSeed));
+                    long elapsed = System.nanoTime() - start;
+                    if (PercolationMetrics.ENABLED) {
+                        PercolationMetrics.recordTrial(result, elapsed,
+                                PercolationMetrics.threadCpuNanos() - cpuStart);
+                    }
+                    this.sink.completed(index, trialSeed, result, elapsed);
+                }
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new TrialRange(this.trials, this.from, middle, this.seed, this.factory, this.sink),
+                    new TrialRange(this.trials, middle, this.to, this.seed, this.factory, this.sink));
+        }
+    }
+}
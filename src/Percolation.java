@@ -1,4 +1,4 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.util.Arrays;
 
 /*
  * Algorithms and Data Structures Assignment
@@ -9,34 +9,166 @@ import edu.princeton.cs.algs4.WeightedQuickUnionUF;
  */
 public class Percolation {
 
-    private boolean[][] grid;
-    private WeightedQuickUnionUF weightedQuickUnionFindArray;
+    /*
+     * The union find implementations a grid can be built on. FLAT is the
+     * primitive array union find with path halving and union by rank.
+     * WEIGHTED_QUICK_UNION wraps the algs4 WeightedQuickUnionUF and is kept so
+     * the two can be compared, its unions cannot be undone so it has no
+     * mark() and rollback().
+     */
+    public enum Backend {
+        FLAT, WEIGHTED_QUICK_UNION
+    }
+
+    /*
+     * How sites are numbered in the union find. The node of row r and column
+     * c (zero based) is rowBase[r] + columnBase[c], every layout here splits
+     * that way. ROW_MAJOR puts vertical neighbours n nodes apart. TILED
+     * stores the grid as 4x4 tiles of 16 ints, one cache line of parents, in
+     * row-major tile order. MORTON interleaves the bits of row and column so
+     * nearby sites are nearby nodes at every scale, it pads the union find to
+     * the next power of two square, up to about 3n^2 nodes just past one.
+     */
+    public enum Layout {
+        ROW_MAJOR, TILED, MORTON;
+
+        private static final int TILE_SHIFT = 2;
+        private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+        long[] rowBases(int n) {
+            long[] bases = new long[n];
+            long tilesPerRow = (n + TILE_MASK) >>> TILE_SHIFT;
+            for (int r = 0; r < n; r++) {
+                if (this == ROW_MAJOR) {
+                    bases[r] = (long) r * n;
+                } else if (this == TILED) {
+                    long tileRow = r >>> TILE_SHIFT;
+                    bases[r] = (tileRow * tilesPerRow << (2 * TILE_SHIFT)) + ((r & TILE_MASK) << TILE_SHIFT);
+                } else {
+                    bases[r] = spread(r) << 1;
+                }
+            }
+            return bases;
+        }
+
+        long[] columnBases(int n) {
+            long[] bases = new long[n];
+            for (int c = 0; c < n; c++) {
+                if (this == ROW_MAJOR) {
+                    bases[c] = c;
+                } else if (this == TILED) {
+                    bases[c] = ((long) (c >>> TILE_SHIFT) << (2 * TILE_SHIFT)) + (c & TILE_MASK);
+                } else {
+                    bases[c] = spread(c);
+                }
+            }
+            return bases;
+        }
+
+        // the bits of x moved to the even bit positions
+        private static long spread(int x) {
+            long bits = x & 0xFFFFFFFFL;
+            bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+            bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+            bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+            bits = (bits | (bits << 2)) & 0x3333333333333333L;
+            return (bits | (bits << 1)) & 0x5555555555555555L;
+        }
+    }
+
+    // the site states written by fillRowState
+    public static final byte SITE_CLOSED = 0;
+    public static final byte SITE_OPEN = 1;
+    public static final byte SITE_FULL = 2;
+
+    private Backend backend;
+    private SiteUnionFind unionFind;
+    private SiteBits openSites;
+    private long[] freshBits; // scratch row of newly opened sites for openRow
+    private long[] regionMask; // scratch row mask for openRegion
+    private long[] rowUnions; // scratch left, right, up and down union masks of a row
 
     private int gridSize; // number of elements in grid is gridSize squared
-    private int virtualTop; // index (0) of the union find array
-    private int virtualBottom; // index (UFSize - 1) of the union find array
+    private int[] rowBase; // union find node of (row, column) is rowBase[row] + columnBase[column]
+    private int[] columnBase;
 
     /*
-     * Constructor for the grid takes a grid size, squares it and creates a two
-     * dimensional array containing gridSize^2 number of elements. Each element
-     * contains a boolean value. True means the site at the array index is open
-     * and false means its closed. Initialized to false.
+     * While a mark is outstanding every newly opened site is logged, and each
+     * mark remembers the open log length and the union find checkpoint.
+     */
+    private int[] openedLog;
+    private int opened;
+    private int[] markOpened;
+    private int[] markCheckpoint;
+    private int marks;
+
+    /*
+     * Constructor for the grid takes a grid size, squares it and creates a bit
+     * for each of the gridSize^2 sites. A set bit means the site is open and a
+     * clear bit means its closed. Initialized to closed.
      * 
      * @param int n - the value used to create the grid size.
      */
     public Percolation(int n) {
+        this(n, Backend.FLAT);
+    }
+
+    /*
+     * Constructor for a grid built on the given union find backend.
+     * 
+     * @param int n - the value used to create the grid size.
+     * 
+     * @param Backend backend - the union find implementation to use
+     */
+    public Percolation(int n, Backend backend) {
+        this(n, backend, Layout.ROW_MAJOR);
+    }
+
+    /*
+     * Constructor for a grid built on the given union find backend with its
+     * nodes in the given layout. The layout only changes where sites live in
+     * memory, every query answers the same.
+     * 
+     * @param int n - the value used to create the grid size.
+     * 
+     * @param Backend backend - the union find implementation to use
+     * 
+     * @param Layout layout - how sites are numbered in the union find
+     */
+    public Percolation(int n, Backend backend, Layout layout) {
         if (n <= 0) {
             throw new IllegalArgumentException("Error: Percolation() n <= 0");
         }
         if (n == 1) {
             throw new IllegalArgumentException("Error: Percolation() n == 1");
         }
+        if ((long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: Percolation() n^2 overflows int, use MappedPercolation");
+        }
         this.gridSize = n;
-        this.grid = new boolean[gridSize][gridSize];
-        int unionFindSize = (gridSize * gridSize) + 2;
-        this.weightedQuickUnionFindArray = new WeightedQuickUnionUF(unionFindSize);
-        this.virtualTop = 0;
-        this.virtualBottom = weightedQuickUnionFindArray.count() - 1;
+        long[] rowBases = layout.rowBases(n);
+        long[] columnBases = layout.columnBases(n);
+        long nodes = rowBases[n - 1] + columnBases[n - 1] + 1;
+        if (nodes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: Percolation() " + layout + " layout overflows int");
+        }
+        this.rowBase = new int[n];
+        this.columnBase = new int[n];
+        for (int k = 0; k < n; k++) {
+            this.rowBase[k] = (int) rowBases[k];
+            this.columnBase[k] = (int) columnBases[k];
+        }
+        int unionFindSize = (int) nodes;
+        this.backend = backend;
+        if (backend == Backend.WEIGHTED_QUICK_UNION) {
+            this.unionFind = new WeightedQuickUnionBackend(unionFindSize);
+        } else {
+            this.unionFind = new FlatUnionFind(unionFindSize);
+        }
+        this.openSites = new SiteBits(gridSize);
+        this.freshBits = new long[this.openSites.wordsPerRow()];
+        this.regionMask = new long[this.openSites.wordsPerRow()];
+        this.rowUnions = new long[4 * this.openSites.wordsPerRow()];
     }
 
     /*
@@ -49,112 +181,487 @@ public class Percolation {
      * @param int j - the column in the percolation grid
      */
     public void open(int i, int j) {
-        if (i <= 0 || j > this.gridSize) {
+        validate(i, j, "open()");
+        openSite(i - 1, j - 1);
+    }
+
+    /*
+     * Open a site given its flat index, (i - 1) * n + (j - 1) for row i and
+     * column j. Callers that already work with flat indices, like a shuffled
+     * list of every site, skip the row and column conversion.
+     * 
+     * @param int site - the flat index of the site, 0 to n^2 - 1
+     */
+    public void open(int site) {
+        if (site < 0 || site >= this.gridSize * this.gridSize) {
             throw new IndexOutOfBoundsException("Error: open()");
         }
-        this.grid[i - 1][j - 1] = true;
-        if (i == 1 && j == 1) { // top left
-            connectToVTop(i, j);
-            checkRight(i, j);
-            checkBottom(i, j);
-        } else if (i == this.gridSize && j == 1) { // bottom left
-            connectToVBottom(i, j);
-            checkTop(i, j);
-            checkRight(i, j);
-        } else if (i == 1 && j == this.gridSize) { // top right
-            connectToVTop(i, j);
-            checkLeft(i, j);
-            checkBottom(i, j);
-        } else if (j == this.gridSize && i == this.gridSize) { // bottom
-            connectToVBottom(i, j);
-            checkTop(i, j);
-            checkLeft(i, j);
-        } else if (j == 1 && i != this.gridSize) { // left
-            checkTop(i, j);
-            checkRight(i, j);
-            checkBottom(i, j);
-        } else if (j == this.gridSize && i != this.gridSize) { // right
-            checkTop(i, j);
-            checkLeft(i, j);
-            checkBottom(i, j);
-        } else if (i == 1) { // top
-            connectToVTop(i, j);
-            checkLeft(i, j);
-            checkRight(i, j);
-            checkBottom(i, j);
-        } else if (i == this.gridSize) { // bottom
-            connectToVBottom(i, j);
-            checkTop(i, j);
-            checkRight(i, j);
-            checkLeft(i, j);
-        } else { // center
-            checkTop(i, j);
-            checkRight(i, j);
-            checkLeft(i, j);
-            checkBottom(i, j);
-        }
-    }
-
-    /*
-     * Methods to handle the connections between nodes on the grid. Check in all
-     * four directions and union the nodes if they are open.
+        int row = site / this.gridSize;
+        openSite(row, site - row * this.gridSize);
+    }
+
+    /*
+     * Open the site and union it with each open neighbour. Sites in the top and
+     * bottom rows have no neighbour above or below, instead they flag their
+     * component as touching the top or the bottom.
      * 
-     * @param int row - the row index of the node
+     * @param int row - the zero based row of the site
      * 
-     * @param int column - the column index of the node
+     * @param int column - the zero based column of the site
      */
-    private void checkLeft(int row, int column) {
-        if (isOpen(row, column - 1)) {
-            this.weightedQuickUnionFindArray.union(convertIndex(row, column), convertIndex(row, column - 1));
+    private void openSite(int row, int column) {
+        SiteUnionFind unionFind = this.unionFind;
+        SiteBits openSites = this.openSites;
+        int n = this.gridSize;
+        if (openSites.get(row, column)) {
+            return;
+        }
+        if (this.marks > 0) {
+            logOpened(row * n + column);
+        }
+        openSites.set(row, column);
+        int[] rowBase = this.rowBase;
+        int[] columnBase = this.columnBase;
+        int rowPart = rowBase[row];
+        int columnPart = columnBase[column];
+        int site = rowPart + columnPart;
+        if (row == 0) {
+            unionFind.mark(site, SiteUnionFind.TOP);
+        } else if (openSites.get(row - 1, column)) {
+            unionFind.union(site, rowBase[row - 1] + columnPart);
+        }
+        if (row == n - 1) {
+            unionFind.mark(site, SiteUnionFind.BOTTOM);
+        } else if (openSites.get(row + 1, column)) {
+            unionFind.union(site, rowBase[row + 1] + columnPart);
+        }
+        if (column > 0 && openSites.get(row, column - 1)) {
+            unionFind.union(site, rowPart + columnBase[column - 1]);
+        }
+        if (column < n - 1 && openSites.get(row, column + 1)) {
+            unionFind.union(site, rowPart + columnBase[column + 1]);
         }
     }
 
-    private void checkRight(int row, int column) {
-        if (isOpen(row, column + 1)) {
-            this.weightedQuickUnionFindArray.union(convertIndex(row, column), convertIndex(row, column + 1));
+    /*
+     * Open every site of row i whose bit is set in the mask, bit k of mask[w]
+     * is column w * 64 + k + 1. Bits past column n are ignored. Each run of
+     * newly opened sites is first linked under its first site with no finds,
+     * then unions worked out a word at a time by RowUnions join the run to an
+     * already open site at either end, and to the row above or below only
+     * where a new site starts a run of sites open in both rows, the rest of
+     * such a run is already connected through the run itself.
+     * 
+     * @param int i - the row in the percolation grid
+     * 
+     * @param long[] mask - the columns to open, at least (n + 63) / 64 words
+     */
+    public void openRow(int i, long[] mask) {
+        validate(i, 1, "openRow()");
+        if (mask.length < this.openSites.wordsPerRow()) {
+            throw new IllegalArgumentException("Error: openRow() mask is shorter than a row");
         }
+        openRowBits(i - 1, mask, 0);
     }
 
-    private void checkTop(int row, int column) {
-        if (isOpen(row - 1, column)) {
-            this.weightedQuickUnionFindArray.union(convertIndex(row, column), convertIndex(row - 1, column));
+    /*
+     * Open every site in the rectangle from (i1, j1) to (i2, j2) inclusive, a
+     * row at a time through the same word level unions as openRow.
+     * 
+     * @param int i1 - the first row
+     * 
+     * @param int j1 - the first column
+     * 
+     * @param int i2 - the last row, at least i1
+     * 
+     * @param int j2 - the last column, at least j1
+     */
+    public void openRegion(int i1, int j1, int i2, int j2) {
+        validate(i1, j1, "openRegion()");
+        validate(i2, j2, "openRegion()");
+        if (i2 < i1 || j2 < j1) {
+            throw new IllegalArgumentException("Error: openRegion() empty region");
+        }
+        long[] mask = this.regionMask;
+        for (int w = 0; w < mask.length; w++) {
+            int first = Math.max(j1 - 1 - (w << 6), 0);
+            int last = Math.min(j2 - 1 - (w << 6), 63);
+            mask[w] = first > last ? 0 : (-1L >>> (63 - last)) & (-1L << first);
+        }
+        for (int row = i1 - 1; row < i2; row++) {
+            openRowBits(row, mask, 0);
         }
     }
 
-    private void checkBottom(int row, int column) {
-        if (isOpen(row + 1, column)) {
-            this.weightedQuickUnionFindArray.union(convertIndex(row, column), convertIndex(row + 1, column));
+    /*
+     * Open every site set in a packed snapshot of the grid, row i at offset
+     * (i - 1) * words with words = (n + 63) / 64, each row laid out as the
+     * mask of openRow, the layout fullMask writes. Rows go through openRow
+     * top down, so a dense snapshot costs a parent write per site and a union
+     * per run shared with the row above, rather than a union per pair of open
+     * neighbours. A fully open grid makes n - 1 unions.
+     * 
+     * @param long[] mask - the sites to open, at least n * (n + 63) / 64 words
+     */
+    public void openMask(long[] mask) {
+        int words = this.openSites.wordsPerRow();
+        if (mask.length < (long) this.gridSize * words) {
+            throw new IllegalArgumentException("Error: openMask() mask is shorter than the grid");
+        }
+        for (int row = 0; row < this.gridSize; row++) {
+            openRowBits(row, mask, row * words);
+        }
+    }
+
+    /*
+     * Copy the open bits of row i into out, laid out as the mask of openRow.
+     * Two copies can be xor'ed to find the sites opened in between.
+     * 
+     * @param int i - the row in the percolation grid
+     * 
+     * @param long[] out - receives (n + 63) / 64 words
+     */
+    public void copyRow(int i, long[] out) {
+        validate(i, 1, "copyRow()");
+        this.openSites.copyRow(i - 1, out);
+    }
+
+    /*
+     * Write the state of every site of row i, SITE_CLOSED, SITE_OPEN or
+     * SITE_FULL, into out[0] to out[n - 1]. A run of open sites next to each
+     * other is one component, so there is one find per run rather than one
+     * per site, and nothing is allocated.
+     * 
+     * @param int i - the row in the percolation grid
+     * 
+     * @param byte[] out - receives n states, out[j - 1] for column j
+     */
+    public void fillRowState(int i, byte[] out) {
+        validate(i, 1, "fillRowState()");
+        if (out.length < this.gridSize) {
+            throw new IllegalArgumentException("Error: fillRowState() out is shorter than a row");
+        }
+        SiteBits openSites = this.openSites;
+        int row = i - 1;
+        int end = 0;
+        for (int start = openSites.nextSet(row, 0); start < this.gridSize; start = openSites.nextSet(row, end)) {
+            Arrays.fill(out, end, start, SITE_CLOSED);
+            end = openSites.nextClear(row, start);
+            Arrays.fill(out, start, end, runIsFull(row, start) ? SITE_FULL : SITE_OPEN);
+        }
+        Arrays.fill(out, end, this.gridSize, SITE_CLOSED);
+    }
+
+    /*
+     * Copy the full bits of row i into out, laid out as copyRow, with one
+     * find per run of open sites.
+     * 
+     * @param int i - the row in the percolation grid
+     * 
+     * @param long[] out - receives (n + 63) / 64 words
+     */
+    public void copyFullRow(int i, long[] out) {
+        validate(i, 1, "copyFullRow()");
+        int words = this.openSites.wordsPerRow();
+        if (out.length < words) {
+            throw new IllegalArgumentException("Error: copyFullRow() out is shorter than a row");
+        }
+        Arrays.fill(out, 0, words, 0);
+        SiteBits openSites = this.openSites;
+        int row = i - 1;
+        int end = 0;
+        for (int start = openSites.nextSet(row, 0); start < this.gridSize; start = openSites.nextSet(row, end)) {
+            end = openSites.nextClear(row, start);
+            if (runIsFull(row, start)) {
+                setBits(out, 0, start, end);
+            }
+        }
+    }
+
+    /*
+     * Copy the full bits of the whole grid into out, row i at offset
+     * (i - 1) * words with words = (n + 63) / 64, each row laid out as
+     * copyRow. Rows are done top down in one pass, a run of open sites that
+     * touches an open site in the row above is in its component and takes
+     * its full bit from the row already written, only the other runs need a
+     * find.
+     * 
+     * @param long[] out - receives n * (n + 63) / 64 words
+     */
+    public void fullMask(long[] out) {
+        int n = this.gridSize;
+        int words = this.openSites.wordsPerRow();
+        if (out.length < (long) n * words) {
+            throw new IllegalArgumentException("Error: fullMask() out is shorter than the grid");
+        }
+        SiteBits openSites = this.openSites;
+        Arrays.fill(out, 0, n * words, 0);
+        for (int row = 0; row < n; row++) {
+            int offset = row * words;
+            int end = 0;
+            for (int start = openSites.nextSet(row, 0); start < n; start = openSites.nextSet(row, end)) {
+                end = openSites.nextClear(row, start);
+                int above = row == 0 ? n : openSites.nextSet(row - 1, start);
+                boolean full;
+                if (above < end) {
+                    full = (out[offset - words + (above >>> 6)] & (1L << above)) != 0;
+                } else {
+                    full = runIsFull(row, start);
+                }
+                if (full) {
+                    setBits(out, offset, start, end);
+                }
+            }
+        }
+    }
+
+    // whether the run of open sites starting at the zero based row and column is full
+    private boolean runIsFull(int row, int column) {
+        return (this.unionFind.status(this.rowBase[row] + this.columnBase[column]) & SiteUnionFind.TOP) != 0;
+    }
+
+    // set bits from to end - 1 of the row starting at out[offset]
+    private static void setBits(long[] out, int offset, int from, int end) {
+        int first = from >>> 6;
+        int last = (end - 1) >>> 6;
+        if (first == last) {
+            out[offset + first] |= (-1L << from) & (-1L >>> (63 - ((end - 1) & 63)));
+            return;
+        }
+        out[offset + first] |= -1L << from;
+        for (int w = first + 1; w < last; w++) {
+            out[offset + w] = -1L;
+        }
+        out[offset + last] |= -1L >>> (63 - ((end - 1) & 63));
+    }
+
+    /*
+     * Count the open sites, a bit count over the packed rows.
+     * 
+     * @return int the number of open sites
+     */
+    public int numberOfOpenSites() {
+        return (int) this.openSites.count();
+    }
+
+    /*
+     * Close every site again so the grid can be reused for another trial
+     * without allocating. The open bits double as the list of touched union
+     * find nodes, each opened site's node is reset and its word cleared, the
+     * cost is one pass over the packed rows plus one reset per open site.
+     */
+    public void reset() {
+        SiteBits openSites = this.openSites;
+        int words = openSites.wordsPerRow();
+        int n = this.gridSize;
+        for (int row = 0; row < n; row++) {
+            for (int w = 0; w < words; w++) {
+                long bits = openSites.word(row, w);
+                if (bits == 0) {
+                    continue;
+                }
+                int rowPart = this.rowBase[row];
+                int base = w << 6;
+                while (bits != 0) {
+                    this.unionFind.reset(rowPart + this.columnBase[base + Long.numberOfTrailingZeros(bits)]);
+                    bits &= bits - 1;
+                }
+                openSites.clearWord(row, w);
+            }
+        }
+        this.unionFind.finishReset();
+        this.opened = 0;
+        this.marks = 0;
+    }
+
+    /*
+     * Add the unions and finds counted since the last call or reset() to
+     * PercolationMetrics, called at the end of every trial.
+     */
+    void publishMetrics() {
+        this.unionFind.publishMetrics();
+    }
+
+    /*
+     * Mark the current state so a what-if batch of opens can be undone. Marks
+     * nest, each rollback undoes the opens and unions made since its mark.
+     * Undoing k opens costs O(k log n), not a copy of the grid. Only the FLAT
+     * backend can roll back, on a WEIGHTED_QUICK_UNION grid mark throws
+     * IllegalStateException and leaves the grid as it was.
+     * 
+     * @return int the mark to pass to rollback
+     */
+    public int mark() {
+        if (this.backend != Backend.FLAT) {
+            throw new IllegalStateException("Error: mark() needs the FLAT backend, not " + this.backend);
+        }
+        if (this.markOpened == null) {
+            this.markOpened = new int[4];
+            this.markCheckpoint = new int[4];
+            this.openedLog = new int[64];
+        } else if (this.marks == this.markOpened.length) {
+            this.markOpened = Arrays.copyOf(this.markOpened, this.marks * 2);
+            this.markCheckpoint = Arrays.copyOf(this.markCheckpoint, this.marks * 2);
+        }
+        this.markCheckpoint[this.marks] = this.unionFind.checkpoint();
+        this.markOpened[this.marks] = this.opened;
+        return this.marks++;
+    }
+
+    /*
+     * Close every site opened since the mark and undo its unions. The mark
+     * and any taken after it are used up, once no mark is left the grid stops
+     * logging.
+     * 
+     * @param int mark - a value returned by mark()
+     */
+    public void rollback(int mark) {
+        if (mark < 0 || mark >= this.marks) {
+            throw new IllegalArgumentException("Error: rollback() unknown mark");
+        }
+        this.unionFind.rollback(this.markCheckpoint[mark]);
+        int n = this.gridSize;
+        while (this.opened > this.markOpened[mark]) {
+            int site = this.openedLog[--this.opened];
+            this.openSites.clear(site / n, site % n);
+        }
+        this.marks = mark;
+        if (mark == 0) {
+            this.unionFind.discardLog();
+        }
+    }
+
+    /*
+     * Keep every site opened since the marks and drop all of them.
+     */
+    public void commit() {
+        this.opened = 0;
+        this.marks = 0;
+        this.unionFind.discardLog();
+    }
+
+    private void logOpened(int site) {
+        if (this.opened == this.openedLog.length) {
+            this.openedLog = Arrays.copyOf(this.openedLog, this.opened * 2);
+        }
+        this.openedLog[this.opened++] = site;
+    }
+
+    private void openRowBits(int row, long[] mask, int maskOffset) {
+        SiteBits openSites = this.openSites;
+        int words = openSites.wordsPerRow();
+        long[] fresh = this.freshBits;
+        for (int w = 0; w < words; w++) {
+            long bits = mask[maskOffset + w];
+            if (w == words - 1) {
+                bits &= openSites.lastWordMask();
+            }
+            fresh[w] = bits & ~openSites.word(row, w);
+            openSites.or(row, w, fresh[w]);
+            if (this.marks > 0) {
+                for (long added = fresh[w]; added != 0; added &= added - 1) {
+                    logOpened(row * this.gridSize + (w << 6) + Long.numberOfTrailingZeros(added));
+                }
+            }
+        }
+        linkRuns(row, fresh, words);
+        int n = this.gridSize;
+        long[] unions = this.rowUnions;
+        RowUnions.compute(openSites.words(), openSites.rowOffset(row),
+                row == 0 ? -1 : openSites.rowOffset(row - 1), row == n - 1 ? -1 : openSites.rowOffset(row + 1), fresh,
+                words, unions);
+        for (int w = 0; w < words; w++) {
+            if (fresh[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            unionEach(unions[w], row, base, row, -1);
+            unionEach(unions[words + w], row, base, row, 1);
+            if (row == 0) {
+                markEach(runStarts(fresh, w), row, base, SiteUnionFind.TOP);
+            } else {
+                unionEach(unions[2 * words + w], row, base, row - 1, 0);
+            }
+            if (row == n - 1) {
+                markEach(runStarts(fresh, w), row, base, SiteUnionFind.BOTTOM);
+            } else {
+                unionEach(unions[3 * words + w], row, base, row + 1, 0);
+            }
+        }
+    }
+
+    /*
+     * Link every fresh site of the row under the first site of its run of
+     * fresh sites, so each run is one tree before any union is made. Runs
+     * can cross a word boundary, the first site carries over.
+     */
+    private void linkRuns(int row, long[] fresh, int words) {
+        SiteUnionFind unionFind = this.unionFind;
+        int rowPart = this.rowBase[row];
+        int first = -1;
+        for (int w = 0; w < words; w++) {
+            long starts = runStarts(fresh, w);
+            for (long bits = fresh[w]; bits != 0; bits &= bits - 1) {
+                long bit = bits & -bits;
+                int node = rowPart + this.columnBase[(w << 6) + Long.numberOfTrailingZeros(bit)];
+                if ((starts & bit) != 0) {
+                    first = node;
+                } else {
+                    unionFind.link(node, first);
+                }
+            }
+        }
+    }
+
+    // fresh sites whose left neighbour is not fresh, the first site of each run
+    private static long runStarts(long[] fresh, int w) {
+        return fresh[w] & ~((fresh[w] << 1) | (w > 0 ? fresh[w - 1] >>> 63 : 0));
+    }
+
+    private void unionEach(long bits, int row, int base, int otherRow, int columnOffset) {
+        while (bits != 0) {
+            int column = base + Long.numberOfTrailingZeros(bits);
+            this.unionFind.union(this.rowBase[row] + this.columnBase[column],
+                    this.rowBase[otherRow] + this.columnBase[column + columnOffset]);
+            bits &= bits - 1;
+        }
+    }
+
+    private void markEach(long bits, int row, int base, int status) {
+        while (bits != 0) {
+            int column = base + Long.numberOfTrailingZeros(bits);
+            this.unionFind.mark(this.rowBase[row] + this.columnBase[column], status);
+            bits &= bits - 1;
         }
     }
 
     /*
      * Method to convert the two dimensional array index to a single node index
-     * for the union find array
+     * for the union find array, through the tables of the layout
      * 
      * @param int row - the row index of the node
      * 
      * @param int column - the column index of the node
      */
     private int convertIndex(int row, int column) {
-        row -= 1;
-        column -= 1;
-        return (row * this.gridSize) + column + 1;
+        return this.rowBase[row - 1] + this.columnBase[column - 1];
     }
 
     /*
-     * Methods to handle the connections to the virtual top node and the virtual
-     * bottom node.
+     * Check that the row and column are both within 1 and gridSize. The flat
+     * union find has no row structure so an out of range column would wrap
+     * onto the next row instead of failing.
      * 
      * @param int row - the row index of the node
      * 
      * @param int column - the column index of the node
+     * 
+     * @param String method - the name of the calling method for the message
      */
-    private void connectToVTop(int row, int column) {
-        this.weightedQuickUnionFindArray.union(this.virtualTop, convertIndex(row, column));
-    }
-
-    private void connectToVBottom(int row, int column) {
-        this.weightedQuickUnionFindArray.union(this.virtualBottom, convertIndex(row, column));
+    private void validate(int row, int column, String method) {
+        if (row <= 0 || row > this.gridSize || column <= 0 || column > this.gridSize) {
+            throw new IndexOutOfBoundsException("Error: " + method);
+        }
     }
 
     /*
@@ -168,18 +675,15 @@ public class Percolation {
      * @return boolean isOpen status
      */
     public boolean isOpen(int i, int j) {
-        if (i <= 0 || j > this.gridSize) {
-            throw new IndexOutOfBoundsException("Error: isOpen()");
-        }
-        i = i - 1;
-        j = j - 1;
-        return this.grid[i][j];
+        validate(i, j, "isOpen()");
+        return this.openSites.get(i - 1, j - 1);
     }
 
     /*
      * Check if the site is full by checking first if its open. If its open and
-     * connected to the top virtual node this means the site is full as it is
-     * connected to nodes from itself all the way to the top of the grid.
+     * the root of its component carries the top status bit this means the site
+     * is full as it is connected to nodes from itself all the way to the top of
+     * the grid.
      * 
      * @param int i - the row index of the node
      * 
@@ -188,23 +692,20 @@ public class Percolation {
      * @return boolean isFull site status
      */
     public boolean isFull(int i, int j) {
-        if (i <= 0 || j > this.gridSize) {
-            throw new IndexOutOfBoundsException("Error: isFull()");
-        }
+        validate(i, j, "isFull()");
         // check if the site is open and connected to the top
-        return (isOpen(i, j) && this.weightedQuickUnionFindArray.connected(this.virtualTop, convertIndex(i, j)) ? true
-                : false);
+        return isOpen(i, j) && (this.unionFind.status(convertIndex(i, j)) & SiteUnionFind.TOP) != 0;
     }
 
     /*
-     * Check if the site percolates by checking if the top virtual node and the
-     * bottom virtual node are connected.
+     * Check if the site percolates, the union find records when a component
+     * first carries both the top and the bottom status bits.
      * 
      * @return boolean percolation status
      * 
      */
     public boolean percolates() {
         // check if the system percolates
-        return (this.weightedQuickUnionFindArray.connected(this.virtualTop, this.virtualBottom)) ? true : false;
+        return this.unionFind.percolates();
     }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * PercolationMetrics.java
+ */
+public class PercolationMetrics implements PercolationMetricsMBean {
+
+    /*
+     * Set with -Dpercolation.metrics=true. The flag is static final so with
+     * metrics off the JIT folds every "if (PercolationMetrics.ENABLED)" on the
+     * hot paths away, along with the counting that only feeds it.
+     */
+    static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+
+    static final String OBJECT_NAME = "percolation:type=PercolationMetrics";
+    static final PercolationMetrics INSTANCE = new PercolationMetrics();
+
+    // finds of this many steps or more share the last histogram bucket
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    // LongAdders so workers never contend on one counter
+    private final LongAdder unions = new LongAdder();
+    private final LongAdder finds = new LongAdder();
+    private final LongAdder findSteps = new LongAdder();
+    private final LongAccumulator maxFindSteps = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] findStepHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+    private final LongAdder trials = new LongAdder();
+    private final LongAdder openSites = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAccumulator maxWallNanos = new LongAccumulator(Math::max, 0);
+
+    private PercolationMetrics() {
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            this.findStepHistogram[i] = new LongAdder();
+        }
+    }
+
+    /*
+     * Counts kept by one engine or union find on one thread and added to the
+     * shared metrics once per trial, a find costs a few plain increments
+     * rather than four LongAdder updates.
+     */
+    static final class Counts {
+
+        private long unions;
+        private long finds;
+        private long findSteps;
+        private int maxFindSteps;
+        private final long[] findStepHistogram = new long[HISTOGRAM_BUCKETS];
+
+        void union() {
+            this.unions++;
+        }
+
+        /*
+         * @param int steps - the number of times the find loop went round
+         */
+        void find(int steps) {
+            this.finds++;
+            this.findSteps += steps;
+            this.maxFindSteps = Math.max(this.maxFindSteps, steps);
+            this.findStepHistogram[Math.min(steps, HISTOGRAM_BUCKETS - 1)]++;
+        }
+
+        void flush() {
+            PercolationMetrics metrics = INSTANCE;
+            metrics.unions.add(this.unions);
+            metrics.finds.add(this.finds);
+            metrics.findSteps.add(this.findSteps);
+            metrics.maxFindSteps.accumulate(this.maxFindSteps);
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                if (this.findStepHistogram[i] != 0) {
+                    metrics.findStepHistogram[i].add(this.findStepHistogram[i]);
+                    this.findStepHistogram[i] = 0;
+                }
+            }
+            this.unions = 0;
+            this.finds = 0;
+            this.findSteps = 0;
+            this.maxFindSteps = 0;
+        }
+    }
+
+    /*
+     * @param long count - random sites drawn by a trial, opened or rejected
+     */
+    static void recordDraws(long count) {
+        INSTANCE.draws.add(count);
+    }
+
+    /*
+     * @param double opened - the sites open when the trial percolated
+     *
+     * @param long wall - the wall clock time of the trial in nanoseconds
+     *
+     * @param long cpu - the CPU time of the trial's thread in nanoseconds
+     */
+    static void recordTrial(double opened, long wall, long cpu) {
+        PercolationMetrics metrics = INSTANCE;
+        metrics.trials.increment();
+        metrics.openSites.add((long) opened);
+        metrics.wallNanos.add(wall);
+        metrics.cpuNanos.add(cpu);
+        metrics.maxWallNanos.accumulate(wall);
+    }
+
+    /*
+     * @return long the CPU time of the current thread in nanoseconds, 0 if
+     * the JVM does not measure it
+     */
+    static long threadCpuNanos() {
+        // looked up here, not in a static field, so metrics off never loads JMX
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    /*
+     * Register the metrics with the platform MBean server, once, so jconsole
+     * or any JMX client can read them while a campaign runs.
+     */
+    static void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Error: register()", e);
+        }
+    }
+
+    /*
+     * Print a summary line to out every period on a daemon thread, until the
+     * returned executor is shut down.
+     *
+     * @param PrintStream out - where the lines go
+     *
+     * @param long seconds - the period between lines
+     *
+     * @return ScheduledExecutorService the dump thread, to shut down
+     */
+    static ScheduledExecutorService dumpEvery(PrintStream out, long seconds) {
+        ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "percolation-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dump.scheduleAtFixedRate(() -> out.println(INSTANCE.summary()), seconds, seconds, TimeUnit.SECONDS);
+        return dump;
+    }
+
+    /*
+     * @return String every metric on one line of name=value pairs, in
+     * Locale.ROOT so it parses the same everywhere
+     */
+    String summary() {
+        return String.format(Locale.ROOT, "metrics trials=%d open_sites=%.1f draws_per_open=%.3f unions=%d finds=%d"
+                + " find_steps=%.3f max_find_steps=%d trial_wall_ms=%.3f trial_cpu_ms=%.3f max_trial_wall_ms=%d",
+                getTrials(), getAverageOpenSites(), getDrawsPerOpenSite(), getUnions(), getFinds(),
+                getAverageFindSteps(), getMaxFindSteps(), getAverageTrialWallMillis(), getAverageTrialCpuMillis(),
+                getMaxTrialWallMillis());
+    }
+
+    public long getUnions() {
+        return this.unions.sum();
+    }
+
+    public long getFinds() {
+        return this.finds.sum();
+    }
+
+    public double getAverageFindSteps() {
+        return ratio(this.findSteps.sum(), this.finds.sum());
+    }
+
+    public long getMaxFindSteps() {
+        return this.maxFindSteps.get();
+    }
+
+    public long[] getFindStepHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = this.findStepHistogram[i].sum();
+        }
+        return histogram;
+    }
+
+    public long getTrials() {
+        return this.trials.sum();
+    }
+
+    public double getAverageOpenSites() {
+        return ratio(this.openSites.sum(), this.trials.sum());
+    }
+
+    public double getDrawsPerOpenSite() {
+        return ratio(this.draws.sum(), this.openSites.sum());
+    }
+
+    public double getAverageTrialWallMillis() {
+        return ratio(this.wallNanos.sum(), this.trials.sum()) / 1e6;
+    }
+
+    public double getAverageTrialCpuMillis() {
+        return ratio(this.cpuNanos.sum(), this.trials.sum()) / 1e6;
+    }
+
+    public long getMaxTrialWallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxWallNanos.get());
+    }
+
+    /*
+     * Zero every metric. Counts made while the reset runs may be lost.
+     */
+    public void reset() {
+        this.unions.reset();
+        this.finds.reset();
+        this.findSteps.reset();
+        this.maxFindSteps.reset();
+        for (LongAdder bucket : this.findStepHistogram) {
+            bucket.reset();
+        }
+        this.trials.reset();
+        this.openSites.reset();
+        this.draws.reset();
+        this.wallNanos.reset();
+        this.cpuNanos.reset();
+        this.maxWallNanos.reset();
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? Double.NaN : (double) numerator / denominator;
+    }
+}
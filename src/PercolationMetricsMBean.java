@@ -0,0 +1,52 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * PercolationMetricsMBean.java
+ */
+public interface PercolationMetricsMBean {
+
+    long getUnions();
+
+    long getFinds();
+
+    /*
+     * Find steps stand in for tree height, no union find measures its height
+     * directly. A find walks from its node to the root, so its steps are at
+     * most the height of the tree, after path halving has shortened that
+     * path by every earlier find along it.
+     *
+     * @return double the mean number of steps a find loop took
+     */
+    double getAverageFindSteps();
+
+    long getMaxFindSteps();
+
+    /*
+     * @return long[] finds by number of steps, the last bucket holds every
+     * find of that many steps or more
+     */
+    long[] getFindStepHistogram();
+
+    long getTrials();
+
+    /*
+     * @return double the mean number of open sites when a trial percolated
+     */
+    double getAverageOpenSites();
+
+    /*
+     * @return double random sites drawn per site opened, above 1 only for
+     * trials that reject sites already open
+     */
+    double getDrawsPerOpenSite();
+
+    double getAverageTrialWallMillis();
+
+    double getAverageTrialCpuMillis();
+
+    long getMaxTrialWallMillis();
+
+    void reset();
+}
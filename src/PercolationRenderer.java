@@ -0,0 +1,145 @@
+import java.awt.Font;
+
+import edu.princeton.cs.algs4.StdDraw;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * PercolationRenderer.java
+ */
+public class PercolationRenderer {
+
+    // what was last drawn for each site
+    private static final byte BLOCKED = 0;
+    private static final byte OPEN = 1;
+    private static final byte FULL = 2;
+
+    private final Percolation perc;
+    private final int gridSize;
+    private final byte[] drawn;
+    private final int[] queue; // sites waiting to be flooded full
+    private final long frameNanos;
+    private long lastFrame;
+    private int numberOfOpenSites;
+    private boolean dirty;
+
+    /*
+     * Constructor for a renderer that keeps the canvas in step with a system
+     * by repainting only the sites that change. Double buffering is turned on
+     * so nothing reaches the screen until a frame is shown, and frames are
+     * shown at most maxFramesPerSecond times a second, opens in between are
+     * batched into the next frame.
+     *
+     * @param Percolation perc - the system to draw, with no open sites yet
+     *
+     * @param int n - the grid size
+     *
+     * @param double maxFramesPerSecond - the frame rate cap
+     */
+    public PercolationRenderer(Percolation perc, int n, double maxFramesPerSecond) {
+        if (maxFramesPerSecond <= 0) {
+            throw new IllegalArgumentException("Error: PercolationRenderer() maxFramesPerSecond <= 0");
+        }
+        this.perc = perc;
+        this.gridSize = n;
+        this.drawn = new byte[n * n];
+        this.queue = new int[n * n];
+        this.frameNanos = (long) (1e9 / maxFramesPerSecond);
+        StdDraw.enableDoubleBuffering();
+        StdDraw.clear();
+        StdDraw.setXscale(-0.05 * n, 1.05 * n);
+        StdDraw.setYscale(-0.05 * n, 1.05 * n); // leave a border to write text
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.filledSquare(n / 2.0, n / 2.0, n / 2.0);
+        this.dirty = true;
+        flush();
+    }
+
+    /*
+     * Record that a site has just been opened and repaint what changed. If the
+     * site is full, checked once against the root status of its component,
+     * every open site reachable from it that was drawn as merely open has
+     * become full too and is flooded from here. Each site turns full at most
+     * once so a whole run costs O(n^2) paints instead of O(n^2) per open.
+     *
+     * @param int i - the row of the opened site
+     *
+     * @param int j - the column of the opened site
+     */
+    public void opened(int i, int j) {
+        int n = this.gridSize;
+        int site = (i - 1) * n + (j - 1);
+        if (this.drawn[site] != BLOCKED) {
+            return;
+        }
+        this.numberOfOpenSites++;
+        this.dirty = true;
+        if (!this.perc.isFull(i, j)) {
+            paint(site, OPEN);
+            return;
+        }
+        int head = 0;
+        int tail = 0;
+        paint(site, FULL);
+        this.queue[tail++] = site;
+        while (head < tail) {
+            int next = this.queue[head++];
+            int column = next % n;
+            if (next >= n && this.drawn[next - n] == OPEN) {
+                paint(next - n, FULL);
+                this.queue[tail++] = next - n;
+            }
+            if (next < n * (n - 1) && this.drawn[next + n] == OPEN) {
+                paint(next + n, FULL);
+                this.queue[tail++] = next + n;
+            }
+            if (column > 0 && this.drawn[next - 1] == OPEN) {
+                paint(next - 1, FULL);
+                this.queue[tail++] = next - 1;
+            }
+            if (column < n - 1 && this.drawn[next + 1] == OPEN) {
+                paint(next + 1, FULL);
+                this.queue[tail++] = next + 1;
+            }
+        }
+    }
+
+    /*
+     * Show a frame if anything changed and the frame interval has passed
+     * since the last one.
+     */
+    public void frame() {
+        if (this.dirty && System.nanoTime() - this.lastFrame >= this.frameNanos) {
+            flush();
+        }
+    }
+
+    /*
+     * Show a frame now, used at the end of a run so the last opens are seen.
+     */
+    public void flush() {
+        int n = this.gridSize;
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.filledRectangle(n / 2.0, -0.025 * n, 0.55 * n, 0.025 * n);
+        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.text(0.25 * n, -0.025 * n, this.numberOfOpenSites + " open sites");
+        if (this.perc.percolates()) {
+            StdDraw.text(0.75 * n, -0.025 * n, "percolates");
+        } else {
+            StdDraw.text(0.75 * n, -0.025 * n, "does not percolate");
+        }
+        StdDraw.show();
+        this.lastFrame = System.nanoTime();
+        this.dirty = false;
+    }
+
+    private void paint(int site, byte state) {
+        int n = this.gridSize;
+        this.drawn[site] = state;
+        StdDraw.setPenColor(state == FULL ? StdDraw.BOOK_LIGHT_BLUE : StdDraw.WHITE);
+        StdDraw.filledSquare(site % n + 0.5, n - site / n - 0.5, 0.45);
+    }
+}
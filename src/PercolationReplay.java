@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * PercolationReplay.java
+ */
+public class PercolationReplay {
+
+    // pairs parsed per batch before they are opened
+    private static final int BATCH_PAIRS = 1 << 16;
+
+    private int gridSize;
+    private long sitesRead;
+    private int numberOfOpenSites;
+    private long percolationStep = -1;
+    private long elapsedNanos;
+
+    /*
+     * Constructor replays a site file without drawing anything. Sites are
+     * parsed a batch at a time and opened in file order, the step at which the
+     * system first percolates is recorded as the 1 based position of the pair
+     * in the file.
+     *
+     * @param Path file - a text or binary site file
+     */
+    public PercolationReplay(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (SiteFileReader reader = new SiteFileReader(file)) {
+            this.gridSize = reader.gridSize();
+            Percolation perc = new Percolation(this.gridSize);
+            int[] sites = new int[BATCH_PAIRS * 2];
+            int count;
+            while ((count = reader.read(sites)) > 0) {
+                for (int k = 0; k < count; k += 2) {
+                    this.sitesRead++;
+                    if (!perc.isOpen(sites[k], sites[k + 1])) {
+                        perc.open(sites[k], sites[k + 1]);
+                        this.numberOfOpenSites++;
+                        if (this.percolationStep < 0 && perc.percolates()) {
+                            this.percolationStep = this.sitesRead;
+                        }
+                    }
+                }
+            }
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+    }
+
+    public int gridSize() {
+        return this.gridSize;
+    }
+
+    public long sitesRead() {
+        return this.sitesRead;
+    }
+
+    public int numberOfOpenSites() {
+        return this.numberOfOpenSites;
+    }
+
+    /*
+     * @return long the position of the pair that made the system percolate,
+     * -1 if it never did
+     */
+    public long percolationStep() {
+        return this.percolationStep;
+    }
+
+    public long elapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /*
+     * Convert a site file to the binary format, either fixed 4 byte big endian
+     * ints or unsigned LEB128 varints, which take 2 bytes for any row or
+     * column below 16384.
+     *
+     * @param Path in - the text or binary file to read
+     *
+     * @param Path out - the binary file to write
+     *
+     * @param boolean varint - varints if true, int32 otherwise
+     */
+    public static void convert(Path in, Path out, boolean varint) throws IOException {
+        try (SiteFileReader reader = new SiteFileReader(in);
+                FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.put(SiteFileReader.MAGIC);
+            buffer.put(varint ? SiteFileReader.VARINT : SiteFileReader.INT32);
+            put(buffer, reader.gridSize(), varint);
+            int[] sites = new int[BATCH_PAIRS * 2];
+            int count;
+            while ((count = reader.read(sites)) > 0) {
+                for (int k = 0; k < count; k++) {
+                    if (buffer.remaining() < 5) {
+                        drain(buffer, channel);
+                    }
+                    put(buffer, sites[k], varint);
+                }
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    private static void put(ByteBuffer buffer, int value, boolean varint) {
+        if (!varint) {
+            buffer.putInt(value);
+            return;
+        }
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /*
+     * This program replays a site file headless and prints what happened, or
+     * converts a site file to the binary format.
+     *
+     * Usage: java PercolationReplay input.txt
+     *        java PercolationReplay --convert input.txt output.bin [int32|varint]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("--convert")) {
+            boolean varint = args.length < 4 || args[3].equals("varint");
+            convert(Paths.get(args[1]), Paths.get(args[2]), varint);
+            return;
+        }
+        if (args.length != 1) {
+            System.out.println("Usage: java PercolationReplay <file>");
+            System.out.println("       java PercolationReplay --convert <in> <out> [int32|varint]");
+            System.exit(1);
+        }
+        PercolationReplay replay = new PercolationReplay(Paths.get(args[0]));
+
+        System.out.printf("grid size\t\t= %d\n", replay.gridSize());
+        System.out.printf("sites read\t\t= %d\n", replay.sitesRead());
+        System.out.printf("open sites\t\t= %d\n", replay.numberOfOpenSites());
+        if (replay.percolationStep() < 0) {
+            System.out.printf("percolation step\t= does not percolate\n");
+        } else {
+            System.out.printf("percolation step\t= %d\n", replay.percolationStep());
+        }
+        System.out.printf("time\t\t\t= %.3f ms\n", replay.elapsedNanos() / 1e6);
+    }
+}
@@ -1,5 +1,14 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
 
 /*
  * Algorithms and Data Structures Assignment
@@ -10,8 +19,26 @@ import edu.princeton.cs.algs4.StdStats;
  */
 public class PercolationStats {
 
-    private double[] cycleResults;
-    private double numberOfCycles;
+    /*
+     * How a trial picks the next site to open. REJECTION draws a random row
+     * and column and skips sites that are already open. PERMUTATION shuffles
+     * the n^2 sites as it goes and opens them in shuffled order, one random
+     * number per opened site and no rejected draws. CRITICAL_INDEX runs the
+     * same shuffle through CriticalIndexEngine instead of the public API, it
+     * gives the same result as PERMUTATION for the same seed.
+     */
+    public enum TrialMode {
+        REJECTION, PERMUTATION, CRITICAL_INDEX
+    }
+
+    // trials run before the precision rule is first checked, and per batch
+    private static final int MIN_TRIALS = 32;
+    private static final int BATCH_TRIALS = 64;
+
+    // cap on the trials main runs for a precision target
+    private static final int MAX_TRIALS = 1000000;
+
+    private RunningStats cycleStats = new RunningStats();
     private int numberOfOpenSites;
     private Percolation perc;
 
@@ -24,24 +51,271 @@ public class PercolationStats {
      * @param int T - the number of experiments to run
      */
     public PercolationStats(int n, int trials) {
-        this.cycleResults = new double[trials];
+        this.perc = new Percolation(n);
 
         for (int i = 0; i < trials; i++) {
-            this.perc = new Percolation(n);
+            this.perc.reset();
             this.numberOfOpenSites = 0;
+            long cpuStart = PercolationMetrics.ENABLED ? PercolationMetrics.threadCpuNanos() : 0;
+            long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+            long draws = 0;
 
             while (!perc.percolates()) {
                 int randRow = StdRandom.uniform(1, n + 1);
                 int randCol = StdRandom.uniform(1, n + 1);
+                draws++;
                 if (!perc.isOpen(randRow, randCol)) {
                     perc.open(randRow, randCol);
                     this.numberOfOpenSites++;
                 }
             }
-            this.cycleResults[i] = this.numberOfOpenSites;
-            this.numberOfCycles = trials;
+            if (PercolationMetrics.ENABLED) {
+                PercolationMetrics.recordDraws(draws);
+                this.perc.publishMetrics();
+                PercolationMetrics.recordTrial(this.numberOfOpenSites, System.nanoTime() - start,
+                        PercolationMetrics.threadCpuNanos() - cpuStart);
+            }
+            this.cycleStats.add(this.numberOfOpenSites);
         }
+    }
+
+    /*
+     * Constructor that runs the experiments in parallel on the given pool.
+     * Every trial draws from its own random stream derived from the seed, so
+     * the same seed gives the same results whatever the pool's parallelism.
+     * 
+     * @param int n - the grid size
+     * 
+     * @param int trials - the number of experiments to run
+     * 
+     * @param long seed - the master seed for the trial random streams
+     * 
+     * @param ForkJoinPool pool - the pool to run the experiments on
+     */
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool) {
+        this(n, trials, seed, pool, TrialMode.CRITICAL_INDEX);
+    }
+
+    /*
+     * Constructor that runs the experiments in parallel using the given way of
+     * picking sites.
+     * 
+     * @param int n - the grid size
+     * 
+     * @param int trials - the number of experiments to run
+     * 
+     * @param long seed - the master seed for the trial random streams
+     * 
+     * @param ForkJoinPool pool - the pool to run the experiments on
+     * 
+     * @param TrialMode mode - how each trial picks sites to open
+     */
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool, TrialMode mode) {
+        // fed in trial order so the sums are the same whatever the thread count
+        for (double result : ParallelTrialRunner.run(pool, trials, seed, trialFactory(n, mode))) {
+            this.cycleStats.add(result);
+        }
+    }
 
+    private PercolationStats() {
+    }
+
+    /*
+     * Run experiments until the 95% confidence half width of the mean is
+     * within the relative precision of the mean, or maxTrials is reached.
+     * Trials run in parallel batches of BATCH_TRIALS and each batch is added
+     * in trial order before the rule is checked, so the number of trials and
+     * the results only depend on the seed, not on the thread count.
+     * 
+     * @param int n - the grid size
+     * 
+     * @param double relativePrecision - the target half width over the mean,
+     * 0.01 for 1%
+     * 
+     * @param int maxTrials - stop here even if the target is not reached
+     * 
+     * @param long seed - the master seed for the trial random streams
+     * 
+     * @param ForkJoinPool pool - the pool to run the experiments on
+     * 
+     * @param TrialMode mode - how each trial picks sites to open
+     * 
+     * @return PercolationStats the statistics of the trials that were run
+     */
+    public static PercolationStats untilPrecision(int n, double relativePrecision, int maxTrials, long seed,
+            ForkJoinPool pool, TrialMode mode) {
+        if (!(relativePrecision > 0)) {
+            throw new IllegalArgumentException("Error: untilPrecision() relativePrecision <= 0");
+        }
+        if (maxTrials <= 0) {
+            throw new IllegalArgumentException("Error: untilPrecision() maxTrials <= 0");
+        }
+        PercolationStats ps = new PercolationStats();
+        RunningStats stats = ps.cycleStats;
+        // the worker trials outlive each batch but not the call
+        ParallelTrialRunner.PerWorker perWorker = new ParallelTrialRunner.PerWorker(trialFactory(n, mode));
+        try {
+            double[] batch = new double[BATCH_TRIALS];
+            int[] trials = new int[BATCH_TRIALS];
+            while (stats.count() < maxTrials && (stats.count() < MIN_TRIALS
+                    || !(stats.marginOfError() <= relativePrecision * stats.mean()))) {
+                int first = (int) stats.count();
+                int size = Math.min(BATCH_TRIALS, maxTrials - first);
+                int[] ids = size == BATCH_TRIALS ? trials : new int[size];
+                for (int k = 0; k < size; k++) {
+                    ids[k] = first + k;
+                }
+                ParallelTrialRunner.run(pool, ids, seed, perWorker,
+                        (trial, trialSeed, result, elapsedNanos) -> batch[trial - first] = result);
+                for (int k = 0; k < size; k++) {
+                    stats.add(batch[k]);
+                }
+            }
+        } finally {
+            perWorker.clear();
+        }
+        return ps;
+    }
+
+    /*
+     * Constructor for a campaign that survives being killed. Every completed
+     * trial is appended to the log, and trials already in the log from an
+     * earlier run are not run again, so the same command resumes where the
+     * last run stopped. The statistics are computed by streaming over the log
+     * rather than from results kept in memory. Trial results only depend on
+     * the seed and the trial index, a resumed campaign gives the same answer
+     * as an uninterrupted one.
+     * 
+     * @param int n - the grid size
+     * 
+     * @param int trials - the number of experiments the campaign needs
+     * 
+     * @param long seed - the master seed for the trial random streams
+     * 
+     * @param ForkJoinPool pool - the pool to run the experiments on
+     * 
+     * @param TrialMode mode - how each trial picks sites to open
+     * 
+     * @param Path log - the trial log, created if it does not exist
+     */
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool, TrialMode mode, Path log)
+            throws IOException {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Error: PercolationStats() trials <= 0");
+        }
+        try (TrialLog trialLog = new TrialLog(log, n, seed, mode.ordinal())) {
+            int[] missing = IntStream.range(0, trials).filter(trial -> !trialLog.isCompleted(trial)).toArray();
+            ParallelTrialRunner.run(pool, missing, seed, trialFactory(n, mode),
+                    (trial, trialSeed, result, elapsedNanos) -> {
+                        try {
+                            trialLog.append(trial, trialSeed, result, elapsedNanos);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.cycleStats = TrialLog.summarize(log, trials);
+    }
+
+    private static Supplier<ParallelTrialRunner.Trial> trialFactory(int n, TrialMode mode) {
+        return trialFactory(n, mode, Percolation.Backend.FLAT);
+    }
+
+    /*
+     * Creates the trial object a worker thread reuses for a run, reset
+     * between trials instead of reallocated. The backend is the union find of
+     * the Percolation grids REJECTION and PERMUTATION open sites in,
+     * CRITICAL_INDEX has its own.
+     */
+    static Supplier<ParallelTrialRunner.Trial> trialFactory(int n, TrialMode mode, Percolation.Backend backend) {
+        if (mode == TrialMode.REJECTION) {
+            return () -> {
+                Percolation perc = new Percolation(n, backend);
+                return random -> runTrial(perc, n, random);
+            };
+        }
+        if (mode == TrialMode.PERMUTATION) {
+            return () -> new PermutationTrial(n, backend);
+        }
+        return () -> {
+            CriticalIndexEngine engine = new CriticalIndexEngine(n);
+            return random -> engine.criticalIndex(random);
+        };
+    }
+
+    /*
+     * Run a single experiment, open random sites until the system percolates.
+     * 
+     * @param Percolation perc - the grid to reuse, reset before the trial
+     * 
+     * @param int n - the grid size
+     * 
+     * @param SplittableRandom random - the random stream for this trial
+     * 
+     * @return double the number of sites opened
+     */
+    private static double runTrial(Percolation perc, int n, SplittableRandom random) {
+        perc.reset();
+        int openSites = 0;
+        long draws = 0;
+        while (!perc.percolates()) {
+            int randRow = random.nextInt(1, n + 1);
+            int randCol = random.nextInt(1, n + 1);
+            draws++;
+            if (!perc.isOpen(randRow, randCol)) {
+                perc.open(randRow, randCol);
+                openSites++;
+            }
+        }
+        if (PercolationMetrics.ENABLED) {
+            PercolationMetrics.recordDraws(draws);
+            perc.publishMetrics();
+        }
+        return openSites;
+    }
+
+    /*
+     * A trial that opens the sites of a lazily shuffled permutation. The grid
+     * and the site array are created once and reused, the shuffled prefix is
+     * put back in order after each trial so a trial's result does not depend
+     * on which trials the same worker ran before it.
+     */
+    private static class PermutationTrial implements ParallelTrialRunner.Trial {
+
+        private final Percolation perc;
+        private final int[] sites;
+
+        PermutationTrial(int n, Percolation.Backend backend) {
+            this.perc = new Percolation(n, backend);
+            this.sites = new int[n * n];
+            for (int i = 0; i < this.sites.length; i++) {
+                this.sites[i] = i;
+            }
+        }
+
+        public double run(SplittableRandom random) {
+            Percolation perc = this.perc;
+            perc.reset();
+            int[] sites = this.sites;
+            int openSites = 0;
+            while (!perc.percolates()) {
+                // swap a random site from the unopened tail into position
+                int pick = openSites + random.nextInt(sites.length - openSites);
+                int site = sites[pick];
+                sites[pick] = sites[openSites];
+                sites[openSites] = site;
+                perc.open(site);
+                openSites++;
+            }
+            CriticalIndexEngine.unshuffle(sites, openSites);
+            if (PercolationMetrics.ENABLED) {
+                PercolationMetrics.recordDraws(openSites);
+                perc.publishMetrics();
+            }
+            return openSites;
+        }
     }
 
     /*
@@ -50,8 +324,7 @@ public class PercolationStats {
      * @return double mean of the percolation cycles
      */
     public double mean() {
-        // return this.sumOfOpenSites / this.numberOfCycles;
-        return StdStats.mean(this.cycleResults);
+        return this.cycleStats.mean();
     }
 
     /*
@@ -69,7 +342,7 @@ public class PercolationStats {
          * Math.pow((this.cycleResults[i] - mean()), 2); sumOfVarience +=
          * varience[i]; } return Math.sqrt(sumOfVarience / this.numberOfCycles);
          */
-        return StdStats.stddev(this.cycleResults);
+        return this.cycleStats.stddev();
     }
 
     /*
@@ -78,7 +351,7 @@ public class PercolationStats {
      * @return double confidenceLo value
      */
     public double confidenceLo() {
-        return StdStats.mean(this.cycleResults) - marginOfError();
+        return this.cycleStats.mean() - marginOfError();
     }
 
     /*
@@ -87,7 +360,7 @@ public class PercolationStats {
      * @return double confidenceHi value
      */
     public double confidenceHi() {
-        return StdStats.mean(this.cycleResults) + marginOfError();
+        return this.cycleStats.mean() + marginOfError();
     }
 
     /*
@@ -97,28 +370,83 @@ public class PercolationStats {
      * @return double margin of error
      */
     private double marginOfError() {
-        return (1.96 * stddev()) / Math.sqrt(this.numberOfCycles);
+        return this.cycleStats.marginOfError();
+    }
+
+    /*
+     * @return long the number of experiments the statistics are over
+     */
+    public long numberOfTrials() {
+        return this.cycleStats.count();
     }
 
     /*
      * This program runs percolation experiments based on values input by the
      * user and prints the experiments statistics.
+     * 
+     * Usage: java PercolationStats <N> <T|precision> [seed] [threads] [log]
+     * 
+     * or: java PercolationStats --sizes=<n1,n2,...> --trials=<T> [options],
+     * the seeded, headless run of Experiment with the same options
+     * 
+     * With -Dpercolation.metrics=true the metrics are registered as an MBean
+     * and a summary line is printed to stderr every
+     * -Dpercolation.metrics.interval seconds, 10 by default, and at the end.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        ScheduledExecutorService metricsDump = null;
+        if (PercolationMetrics.ENABLED) {
+            PercolationMetrics.register();
+            metricsDump = PercolationMetrics.dumpEvery(System.err, Long.getLong("percolation.metrics.interval", 10));
+        }
 
+        if (args.length > 0 && args[0].startsWith("--")) {
+            Experiment.main(args);
+        } else {
+            runPositional(args);
+        }
+
+        if (metricsDump != null) {
+            metricsDump.shutdown();
+            System.err.println(PercolationMetrics.INSTANCE.summary());
+        }
+    }
+
+    private static void runPositional(String[] args) throws IOException {
         // N is the grid size
         int n = Integer.parseInt(args[0]);
 
-        // T is the number of experiments to run
-        int t = Integer.parseInt(args[1]);
+        // T is the number of experiments to run, or with a decimal point the
+        // relative precision to run until, 0.005 for a half width of 0.5%
+        boolean untilPrecision = args[1].indexOf('.') >= 0;
 
-        // run the experiment
-        PercolationStats ps = new PercolationStats(n, t);
+        // run the experiment, in parallel when a seed is given
+        PercolationStats ps;
+        if (args.length > 2 || untilPrecision) {
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                if (untilPrecision) {
+                    ps = untilPrecision(n, Double.parseDouble(args[1]), MAX_TRIALS, seed, pool,
+                            TrialMode.CRITICAL_INDEX);
+                } else if (args.length > 4) {
+                    ps = new PercolationStats(n, Integer.parseInt(args[1]), seed, pool, TrialMode.CRITICAL_INDEX,
+                            Paths.get(args[4]));
+                } else {
+                    ps = new PercolationStats(n, Integer.parseInt(args[1]), seed, pool);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            ps = new PercolationStats(n, Integer.parseInt(args[1]));
+        }
 
+        System.out.printf("trials\t\t\t= %d\n", ps.numberOfTrials());
         System.out.printf("mean\t\t\t= %f\n", ps.mean());
         System.out.printf("stddev\t\t\t= %.3f\n", ps.stddev());
         // System.out.printf("Margin of error: %.3f\n", ps.marginOfError());
         System.out.printf("95%% confidence interval\t= %f, %f\n", ps.confidenceLo(), ps.confidenceHi());
-
     }
 }
\ No newline at end of file
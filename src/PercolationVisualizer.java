@@ -25,6 +25,9 @@ import edu.princeton.cs.algs4.StdRandom;
 
 public class PercolationVisualizer {
 
+    // frame rate cap, opens between frames are batched into the next one
+    private static final double FRAMES_PER_SECOND = 30;
+
     // draw N-by-N percolation system
     public static void draw(Percolation perc, int N, int numberOfOpenSites) {
         StdDraw.clear();
@@ -33,13 +36,15 @@ public class PercolationVisualizer {
         StdDraw.setYscale(0, N);
         StdDraw.filledSquare(N / 2.0, N / 2.0, N / 2.0);
 
-        // draw N-by-N grid
+        // draw N-by-N grid, a row of states at a time
+        byte[] states = new byte[N];
         for (int row = 1; row <= N; row++) {
+            perc.fillRowState(row, states);
             for (int col = 1; col <= N; col++) {
-                if (perc.isFull(row, col)) {
+                if (states[col - 1] == Percolation.SITE_FULL) {
 
                     StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
-                } else if (perc.isOpen(row, col)) {
+                } else if (states[col - 1] == Percolation.SITE_OPEN) {
                     StdDraw.setPenColor(StdDraw.WHITE);
                 } else
                     StdDraw.setPenColor(StdDraw.BLACK);
@@ -83,16 +88,18 @@ public class PercolationVisualizer {
 
             for (int i = 0; i < M; i++) {
                 Percolation perc = new Percolation(N);
-                draw(perc, N, numberOfOpenSites);
+                PercolationRenderer renderer = new PercolationRenderer(perc, N, FRAMES_PER_SECOND);
                 while (!perc.percolates()) {
-                    int randRow = StdRandom.uniform(N);
-                    int randCol = StdRandom.uniform(N);
+                    int randRow = StdRandom.uniform(1, N + 1);
+                    int randCol = StdRandom.uniform(1, N + 1);
                     if (!perc.isOpen(randRow, randCol)) {
                         perc.open(randRow, randCol);
+                        renderer.opened(randRow, randCol);
                         numberOfOpenSites++;
                     }
-                    draw(perc, N, numberOfOpenSites);
+                    renderer.frame();
                 }
+                renderer.flush();
                 numberOfOpenSites = 0;
             }
 
@@ -107,9 +114,9 @@ public class PercolationVisualizer {
 
             int numberOfOpenSites = 0;
 
-            // repeatedly read in sites to open and draw resulting system
+            // repeatedly read in sites to open and draw what changed
             Percolation perc = new Percolation(N);
-            draw(perc, N, numberOfOpenSites);
+            PercolationRenderer renderer = new PercolationRenderer(perc, N, FRAMES_PER_SECOND);
 
             while (!in.isEmpty()) {
                 int i = in.readInt(); // row
@@ -117,10 +124,12 @@ public class PercolationVisualizer {
 
                 if (!perc.isOpen(i, j)) {
                     perc.open(i, j);
+                    renderer.opened(i, j);
                     numberOfOpenSites++;
                 }
-                draw(perc, N, numberOfOpenSites);
+                renderer.frame();
             }
+            renderer.flush();
 
         }
     }
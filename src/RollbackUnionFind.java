@@ -0,0 +1,101 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * RollbackUnionFind.java
+ */
+class RollbackUnionFind {
+
+    private static final int RANK_MASK = 0x1F;
+    private static final int TOP = SiteUnionFind.TOP;
+    private static final int BOTTOM = SiteUnionFind.BOTTOM;
+    private static final int SPANNING = TOP | BOTTOM;
+
+    private final int[] parent;
+    private final byte[] state; // rank | status bits of a root
+    private int spanningRoots;
+
+    private final UndoLog log = new UndoLog(); // one entry per union or mark, with spanningRoots
+
+    /*
+     * Constructor creates single node trees. There is no path compression,
+     * union by rank alone keeps finds at O(log n), so every union changes a
+     * fixed number of entries and can be undone exactly.
+     *
+     * @param int size - the number of nodes
+     */
+    RollbackUnionFind(int size) {
+        this.parent = new int[size];
+        this.state = new byte[size];
+        for (int i = 0; i < size; i++) {
+            this.parent[i] = i;
+        }
+    }
+
+    int find(int p) {
+        int[] parent = this.parent;
+        while (p != parent[p]) {
+            p = parent[p];
+        }
+        return p;
+    }
+
+    int status(int site) {
+        return this.state[find(site)] & SPANNING;
+    }
+
+    boolean percolates() {
+        return this.spanningRoots > 0;
+    }
+
+    /*
+     * @return int the point to roll back to, the number of logged operations
+     */
+    int checkpoint() {
+        return this.log.size();
+    }
+
+    void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+        if ((this.state[rootP] & RANK_MASK) < (this.state[rootQ] & RANK_MASK)) {
+            int swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+        }
+        this.log.push(rootQ, rootP, this.state[rootP], this.spanningRoots);
+        int before = spanning(this.state[rootP]) + spanning(this.state[rootQ]);
+        int rank = this.state[rootP] & RANK_MASK;
+        if (rank == (this.state[rootQ] & RANK_MASK)) {
+            rank++;
+        }
+        this.parent[rootQ] = rootP;
+        this.state[rootP] = (byte) (rank | ((this.state[rootP] | this.state[rootQ]) & SPANNING));
+        this.spanningRoots += spanning(this.state[rootP]) - before;
+    }
+
+    void mark(int site, int status) {
+        int root = find(site);
+        this.log.push(-1, root, this.state[root], this.spanningRoots);
+        int before = spanning(this.state[root]);
+        this.state[root] |= status;
+        this.spanningRoots += spanning(this.state[root]) - before;
+    }
+
+    /*
+     * Undo every union and mark made since the checkpoint, latest first.
+     *
+     * @param int checkpoint - a value returned by checkpoint()
+     */
+    void rollback(int checkpoint) {
+        this.spanningRoots = this.log.rollback(checkpoint, this.parent, this.state, this.spanningRoots);
+    }
+
+    private static int spanning(byte state) {
+        return (state & SPANNING) == SPANNING ? 1 : 0;
+    }
+}
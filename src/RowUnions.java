@@ -0,0 +1,79 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * RowUnions.java
+ */
+final class RowUnions {
+
+    private RowUnions() {
+    }
+
+    /*
+     * Work out a word at a time which newly opened sites of a row are to be
+     * unioned with which neighbour. The caller has already linked each run of
+     * fresh sites into one tree, so a run is joined to the site on its left
+     * by its first site and to the site on its right by its last, where those
+     * were already open, and to the row above or below where a fresh site
+     * starts a run of sites open in both rows, the rest of such a run is
+     * already connected through the run itself.
+     *
+     * @param long[] open - the open bits of the grid, words longs per row, the
+     * row's fresh sites already set
+     *
+     * @param int row - the offset of the row in open
+     *
+     * @param int above - the offset of the row above, -1 for the top row
+     *
+     * @param int below - the offset of the row below, -1 for the bottom row
+     *
+     * @param long[] fresh - the sites of the row opened just now
+     *
+     * @param int words - the number of longs in a row
+     *
+     * @param long[] out - receives the sites to union left, right, up and
+     * down, mask w of each at out[w], out[words + w], out[2 * words + w] and
+     * out[3 * words + w]
+     */
+    static void compute(long[] open, int row, int above, int below, long[] fresh, int words, long[] out) {
+        for (int w = 0; w < words; w++) {
+            word(open, row, above, below, fresh, words, out, w);
+        }
+    }
+
+    /*
+     * The four masks of word w, the neighbouring words supply the bit that
+     * shifts in across the word boundary.
+     */
+    private static void word(long[] open, int row, int above, int below, long[] fresh, int words, long[] out, int w) {
+        long added = fresh[w];
+        if (added == 0) {
+            out[w] = 0;
+            out[words + w] = 0;
+            out[2 * words + w] = 0;
+            out[3 * words + w] = 0;
+            return;
+        }
+        long bits = open[row + w];
+        long openLeft = (bits << 1) | (w > 0 ? open[row + w - 1] >>> 63 : 0);
+        long openRight = (bits >>> 1) | (w < words - 1 ? open[row + w + 1] << 63 : 0);
+        long freshLeft = (added << 1) | (w > 0 ? fresh[w - 1] >>> 63 : 0);
+        long freshRight = (added >>> 1) | (w < words - 1 ? fresh[w + 1] << 63 : 0);
+        out[w] = added & openLeft & ~freshLeft;
+        out[words + w] = added & openRight & ~freshRight;
+        out[2 * words + w] = above < 0 ? 0 : added & runStarts(open, above, w, openLeft);
+        out[3 * words + w] = below < 0 ? 0 : added & runStarts(open, below, w, openLeft);
+    }
+
+    /*
+     * Sites open in the other row whose left neighbour is not open in both
+     * rows, and'ed with the fresh sites this is the first site of each run
+     * open in both.
+     */
+    private static long runStarts(long[] open, int other, int w, long openLeft) {
+        long bits = open[other + w];
+        long otherLeft = (bits << 1) | (w > 0 ? open[other + w - 1] >>> 63 : 0);
+        return bits & ~(openLeft & otherLeft);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * RunningStats.java
+ */
+class RunningStats {
+
+    // critical value of a two sided 95% confidence interval
+    static final double CONFIDENCE_95 = 1.96;
+
+    private long count;
+    private double mean;
+    private double sumOfSquares; // of the deviations from the running mean
+
+    /*
+     * Add one value using Welford's update. The mean moves by a fraction of
+     * the new deviation and the sum of squares grows by the product of the
+     * deviations before and after the move, which stays accurate where the
+     * textbook sum of x^2 minus n times mean^2 cancels catastrophically.
+     *
+     * @param double value - the result of one trial
+     */
+    void add(double value) {
+        this.count++;
+        double deviation = value - this.mean;
+        this.mean += deviation / this.count;
+        this.sumOfSquares += deviation * (value - this.mean);
+    }
+
+    long count() {
+        return this.count;
+    }
+
+    double mean() {
+        return this.count == 0 ? Double.NaN : this.mean;
+    }
+
+    /*
+     * @return double the sample standard deviation, NaN for fewer than two
+     * values like StdStats.stddev
+     */
+    double stddev() {
+        return this.count < 2 ? Double.NaN : Math.sqrt(this.sumOfSquares / (this.count - 1));
+    }
+
+    /*
+     * @return double the half width of the 95% confidence interval of the
+     * mean
+     */
+    double marginOfError() {
+        return CONFIDENCE_95 * stddev() / Math.sqrt(this.count);
+    }
+}
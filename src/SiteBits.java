@@ -0,0 +1,126 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * SiteBits.java
+ */
+class SiteBits {
+
+    private final int gridSize;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /*
+     * Constructor creates one bit per site, all clear. Every row starts on a
+     * fresh long so a row can be read or written a word at a time, bit k of
+     * word w in a row is column w * 64 + k (zero based).
+     *
+     * @param int n - the grid size
+     */
+    SiteBits(int n) {
+        this.gridSize = n;
+        this.wordsPerRow = (n + 63) >>> 6;
+        this.words = new long[n * this.wordsPerRow];
+    }
+
+    int wordsPerRow() {
+        return this.wordsPerRow;
+    }
+
+    /*
+     * Mask of the bits of the last word of a row that are real columns.
+     */
+    long lastWordMask() {
+        int used = this.gridSize & 63;
+        return used == 0 ? -1L : (1L << used) - 1;
+    }
+
+    boolean get(int row, int column) {
+        return (this.words[row * this.wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    void set(int row, int column) {
+        this.words[row * this.wordsPerRow + (column >>> 6)] |= 1L << column;
+    }
+
+    void clear(int row, int column) {
+        this.words[row * this.wordsPerRow + (column >>> 6)] &= ~(1L << column);
+    }
+
+    /*
+     * The backing words, row r starting at rowOffset(r), for code that works
+     * on several rows' words at once.
+     */
+    long[] words() {
+        return this.words;
+    }
+
+    int rowOffset(int row) {
+        return row * this.wordsPerRow;
+    }
+
+    long word(int row, int word) {
+        return this.words[row * this.wordsPerRow + word];
+    }
+
+    void or(int row, int word, long bits) {
+        this.words[row * this.wordsPerRow + word] |= bits;
+    }
+
+    void clearWord(int row, int word) {
+        this.words[row * this.wordsPerRow + word] = 0;
+    }
+
+    /*
+     * The first open column of the row at or after from, n if there is none.
+     * Bits past column n are never set.
+     */
+    int nextSet(int row, int from) {
+        if (from >= this.gridSize) {
+            return this.gridSize;
+        }
+        int base = row * this.wordsPerRow;
+        int w = from >>> 6;
+        long word = this.words[base + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == this.wordsPerRow) {
+                return this.gridSize;
+            }
+            word = this.words[base + w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /*
+     * The first closed column of the row at or after from, n if there is
+     * none.
+     */
+    int nextClear(int row, int from) {
+        if (from >= this.gridSize) {
+            return this.gridSize;
+        }
+        int base = row * this.wordsPerRow;
+        int w = from >>> 6;
+        long word = ~this.words[base + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == this.wordsPerRow) {
+                return this.gridSize;
+            }
+            word = ~this.words[base + w];
+        }
+        return Math.min((w << 6) + Long.numberOfTrailingZeros(word), this.gridSize);
+    }
+
+    void copyRow(int row, long[] out) {
+        System.arraycopy(this.words, row * this.wordsPerRow, out, 0, this.wordsPerRow);
+    }
+
+    long count() {
+        long count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * SiteFileReader.java
+ */
+public class SiteFileReader implements AutoCloseable {
+
+    /*
+     * Binary files start with the magic bytes, a format byte and the grid size
+     * in the same encoding as the pairs that follow.
+     */
+    static final byte[] MAGIC = { 'P', 'E', 'R', 'C' };
+    static final byte INT32 = 1;
+    static final byte VARINT = 2;
+    static final byte TEXT = 0;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final byte format;
+    private final int gridSize;
+    private boolean endOfFile;
+
+    /*
+     * Constructor opens a site file and reads its header. Text files are the
+     * format PercolationVisualizer reads, the grid size followed by row and
+     * column pairs separated by whitespace. Binary files are detected by their
+     * magic bytes.
+     *
+     * @param Path file - the file to read
+     */
+    public SiteFileReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip();
+        boolean binary = fill(MAGIC.length + 1);
+        for (int i = 0; binary && i < MAGIC.length; i++) {
+            binary = this.buffer.get(this.buffer.position() + i) == MAGIC[i];
+        }
+        if (binary) {
+            this.buffer.position(this.buffer.position() + MAGIC.length);
+            this.format = this.buffer.get();
+            if (this.format != INT32 && this.format != VARINT) {
+                throw new IOException("Error: SiteFileReader() unknown format " + this.format);
+            }
+        } else {
+            this.format = TEXT;
+        }
+        if (!hasNext()) {
+            throw new EOFException("Error: SiteFileReader() missing grid size");
+        }
+        this.gridSize = next();
+    }
+
+    public int gridSize() {
+        return this.gridSize;
+    }
+
+    /*
+     * Read up to sites.length / 2 row and column pairs into the array,
+     * rows at even and columns at odd positions. No objects are created.
+     *
+     * @param int[] sites - the buffer to fill, of even length
+     *
+     * @return int the number of ints read, 0 at the end of the file
+     */
+    public int read(int[] sites) throws IOException {
+        int count = 0;
+        while (count + 1 < sites.length && hasNext()) {
+            sites[count++] = next();
+            if (!hasNext()) {
+                throw new EOFException("Error: read() row without a column");
+            }
+            sites[count++] = next();
+        }
+        return count;
+    }
+
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // skip any whitespace and report if another value follows
+    private boolean hasNext() throws IOException {
+        if (this.format != TEXT) {
+            return fill(1);
+        }
+        while (fill(1)) {
+            byte b = this.buffer.get(this.buffer.position());
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return true;
+            }
+            this.buffer.get();
+        }
+        return false;
+    }
+
+    private int next() throws IOException {
+        if (this.format == INT32) {
+            if (!fill(4)) {
+                throw new EOFException("Error: next() truncated int32");
+            }
+            return this.buffer.getInt();
+        }
+        if (this.format == VARINT) {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (!fill(1)) {
+                    throw new EOFException("Error: next() truncated varint");
+                }
+                byte b = this.buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Error: next() varint longer than 5 bytes");
+        }
+        int value = 0;
+        boolean negative = false;
+        if (this.buffer.get(this.buffer.position()) == '-') {
+            negative = true;
+            this.buffer.get();
+        }
+        boolean digits = false;
+        while (fill(1)) {
+            byte b = this.buffer.get(this.buffer.position());
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            digits = true;
+            this.buffer.get();
+        }
+        if (!digits) {
+            throw new IOException("Error: next() expected an integer");
+        }
+        return negative ? -value : value;
+    }
+
+    // make at least count bytes available, false if the file ends first
+    private boolean fill(int count) throws IOException {
+        while (this.buffer.remaining() < count) {
+            if (this.endOfFile) {
+                return false;
+            }
+            this.buffer.compact();
+            if (this.channel.read(this.buffer) < 0) {
+                this.endOfFile = true;
+            }
+            this.buffer.flip();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * SiteUnionFind.java
+ */
+interface SiteUnionFind {
+
+    // status bits carried by the root of each component
+    int TOP = 0x40;
+    int BOTTOM = 0x80;
+
+    /*
+     * Merge the components containing the two nodes.
+     *
+     * @param int p - the first node index
+     *
+     * @param int q - the second node index
+     */
+    void union(int p, int q);
+
+    /*
+     * Link a site opened just now, still a single node tree with no status
+     * bits, under a root with no finds. A run of fresh sites becomes one tree
+     * at the cost of a parent write per site.
+     *
+     * @param int p - the node index of the fresh site
+     *
+     * @param int root - the node index of a root
+     */
+    void link(int p, int root);
+
+    /*
+     * Check if the two nodes are in the same component.
+     *
+     * @param int p - the first node index
+     *
+     * @param int q - the second node index
+     *
+     * @return boolean connected status
+     */
+    boolean connected(int p, int q);
+
+    /*
+     * Find the root of the component containing the node.
+     *
+     * @param int p - the node index
+     *
+     * @return int the root node index
+     */
+    int find(int p);
+
+    /*
+     * Add status bits to the component containing the site. The bits are
+     * merged into the surviving root on every union.
+     *
+     * @param int site - the node index of the site
+     *
+     * @param int status - TOP, BOTTOM or both
+     */
+    void mark(int site, int status);
+
+    /*
+     * Get the status bits of the component containing the site.
+     *
+     * @param int site - the node index of the site
+     *
+     * @return int the status bits of the root
+     */
+    int status(int site);
+
+    /*
+     * Check if any component carries both the TOP and the BOTTOM status bits.
+     *
+     * @return boolean percolation status
+     */
+    boolean percolates();
+
+    /*
+     * Return a node to a single node tree with no status bits. Only nodes of
+     * opened sites are ever linked or marked, so resetting each of them puts
+     * the whole union find back to its initial state.
+     *
+     * @param int site - the node index of an opened site
+     */
+    void reset(int site);
+
+    /*
+     * Called once every opened site has been reset, clears the percolation
+     * flag.
+     */
+    void finishReset();
+
+    /*
+     * Add the unions and finds counted since the last call to the shared
+     * PercolationMetrics, nothing with metrics off. Counting stays local to
+     * the union find in between so the hot paths never touch a shared
+     * counter.
+     */
+    void publishMetrics();
+
+    /*
+     * Start logging every change so it can be undone, or keep logging if
+     * already started. While logging the union find does no path compression,
+     * union by rank alone keeps finds at O(log n) and each union or mark
+     * changes a fixed number of entries.
+     *
+     * @return int the point to roll back to
+     */
+    int checkpoint();
+
+    /*
+     * Undo every union and mark made since the checkpoint, latest first.
+     *
+     * @param int checkpoint - a value returned by checkpoint()
+     */
+    void rollback(int checkpoint);
+
+    /*
+     * Keep every logged change, drop the log and stop logging.
+     */
+    void discardLog();
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * ThresholdSweep.java
+ */
+public class ThresholdSweep {
+
+    // binomial terms smaller than this fraction of the largest are dropped
+    private static final double NEGLIGIBLE = 1e-17;
+
+    private final int[] sizes;
+    private final double[] probabilities;
+    private final int trials;
+    private final double[][] percolation; // [size][probability]
+
+    /*
+     * Constructor estimates, for every grid size n and site probability p, the
+     * probability that a grid with each site open independently with
+     * probability p percolates. One critical index per trial answers every p
+     * at once: a grid with m sites open in the trial's order percolates
+     * exactly when m is at least the critical index, so the fraction of
+     * trials with critical index <= m is the percolation probability with m
+     * open sites, and weighting it by the binomial distribution of m gives
+     * the probability at p.
+     *
+     * @param int[] sizes - the grid sizes n, each at least 2
+     *
+     * @param double[] probabilities - the site probabilities p, in [0, 1]
+     *
+     * @param int trials - the number of trials per grid size
+     *
+     * @param long seed - the master seed, each size gets its own derived seed
+     *
+     * @param ForkJoinPool pool - the pool to run the trials on
+     */
+    public ThresholdSweep(int[] sizes, double[] probabilities, int trials, long seed, ForkJoinPool pool) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("Error: ThresholdSweep() no sizes");
+        }
+        for (int n : sizes) {
+            if (n <= 1) {
+                throw new IllegalArgumentException("Error: ThresholdSweep() size <= 1");
+            }
+        }
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Error: ThresholdSweep() trials <= 0");
+        }
+        if (probabilities.length == 0) {
+            throw new IllegalArgumentException("Error: ThresholdSweep() no probabilities");
+        }
+        for (double p : probabilities) {
+            if (!(p >= 0 && p <= 1)) {
+                throw new IllegalArgumentException("Error: ThresholdSweep() p outside [0, 1]");
+            }
+        }
+        this.sizes = sizes.clone();
+        this.probabilities = probabilities.clone();
+        this.trials = trials;
+        this.percolation = new double[sizes.length][];
+        for (int s = 0; s < sizes.length; s++) {
+            int n = sizes[s];
+            double[] critical = ParallelTrialRunner.run(pool, trials, ParallelTrialRunner.trialSeed(seed, n), () -> {
+                CriticalIndexEngine engine = new CriticalIndexEngine(n);
+                return random -> engine.criticalIndex(random);
+            });
+            Arrays.sort(critical);
+            this.percolation[s] = new double[probabilities.length];
+            for (int k = 0; k < probabilities.length; k++) {
+                this.percolation[s][k] = convolve(critical, n * n, probabilities[k]);
+            }
+        }
+    }
+
+    /*
+     * The estimated percolation probability of the grid size and site
+     * probability at the given indices of the arrays passed in.
+     */
+    public double percolationProbability(int sizeIndex, int probabilityIndex) {
+        return this.percolation[sizeIndex][probabilityIndex];
+    }
+
+    /*
+     * Standard error of an estimate, that of a fraction of the trials. The
+     * binomial weighting only smooths it so this is a slight overestimate.
+     */
+    public double standardError(int sizeIndex, int probabilityIndex) {
+        double estimate = this.percolation[sizeIndex][probabilityIndex];
+        return Math.sqrt(estimate * (1 - estimate) / this.trials);
+    }
+
+    /*
+     * Write one line per (n, p) after a header line, with Locale.ROOT so the
+     * numbers keep a decimal point whatever the default locale.
+     *
+     * @param PrintStream out - where the CSV goes
+     */
+    public void writeCsv(PrintStream out) {
+        out.println("n,p,trials,percolation_probability,standard_error");
+        for (int s = 0; s < this.sizes.length; s++) {
+            for (int k = 0; k < this.probabilities.length; k++) {
+                out.printf(Locale.ROOT, "%d,%s,%d,%.9f,%.9f\n", this.sizes[s], this.probabilities[k], this.trials,
+                        this.percolation[s][k], standardError(s, k));
+            }
+        }
+    }
+
+    /*
+     * Sum over m of P(m open sites at p) times the fraction of sorted critical
+     * indices <= m. The binomial terms are built by their ratio outwards from
+     * the mode and relative to it, so there is no overflow and no factorial,
+     * and the sum stops where the terms no longer matter.
+     *
+     * @param double[] critical - the critical indices, sorted
+     *
+     * @param int sites - the number of sites n^2
+     *
+     * @param double p - the site probability
+     *
+     * @return double the percolation probability at p
+     */
+    static double convolve(double[] critical, int sites, double p) {
+        if (p <= 0) {
+            return fractionAtMost(critical, 0);
+        }
+        if (p >= 1) {
+            return fractionAtMost(critical, sites);
+        }
+        int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+        double odds = p / (1 - p);
+        double weighted = fractionAtMost(critical, mode);
+        double total = 1;
+        double term = 1;
+        for (int m = mode; m < sites && term > NEGLIGIBLE; m++) {
+            term *= (double) (sites - m) / (m + 1) * odds;
+            weighted += term * fractionAtMost(critical, m + 1);
+            total += term;
+        }
+        term = 1;
+        for (int m = mode; m > 0 && term > NEGLIGIBLE; m--) {
+            term *= m / ((sites - m + 1) * odds);
+            weighted += term * fractionAtMost(critical, m - 1);
+            total += term;
+        }
+        return weighted / total;
+    }
+
+    // the fraction of trials that percolate with m sites open
+    private static double fractionAtMost(double[] critical, int m) {
+        int low = 0;
+        int high = critical.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (critical[middle] <= m) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return (double) low / critical.length;
+    }
+
+    /*
+     * Sweeps the sizes over steps + 1 evenly spaced probabilities from pFrom
+     * to pTo and prints CSV, to the file when one is given.
+     *
+     * Usage: java ThresholdSweep <n1,n2,...> <pFrom> <pTo> <steps> <T> [seed]
+     * [threads] [csv]
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray();
+        double from = Double.parseDouble(args[1]);
+        double to = Double.parseDouble(args[2]);
+        int steps = Integer.parseInt(args[3]);
+        int trials = Integer.parseInt(args[4]);
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        double[] probabilities = new double[steps + 1];
+        for (int k = 0; k <= steps; k++) {
+            // rounded so the CSV shows 0.575 rather than 0.5750000000000001
+            probabilities[k] = steps == 0 ? from : Math.round((from + (to - from) * k / steps) * 1e12) / 1e12;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ThresholdSweep sweep;
+        try {
+            sweep = new ThresholdSweep(sizes, probabilities, trials, seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+        if (args.length > 7) {
+            try (PrintStream out = new PrintStream(Paths.get(args[7]).toFile(), "UTF-8")) {
+                sweep.writeCsv(out);
+            }
+        } else {
+            sweep.writeCsv(System.out);
+        }
+    }
+}
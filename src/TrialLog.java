@@ -0,0 +1,192 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * TrialLog.java
+ */
+class TrialLog implements Closeable {
+
+    /*
+     * A 20 byte header, MAGIC, VERSION, the trial mode, two spare bytes, the
+     * grid size and the master seed, then one fixed size record per completed
+     * trial in completion order: trial index, trial seed, open sites and
+     * elapsed nanoseconds. Big endian throughout.
+     */
+    static final int MAGIC = 0x504c4f47; // "PLOG"
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 20;
+    static final int RECORD_BYTES = 24;
+
+    // records are written straight through, the channel is forced this often
+    private static final long SYNC_NANOS = 1_000_000_000L;
+    private static final int SYNC_RECORDS = 4096;
+
+    // records read per batch when scanning
+    private static final int SCAN_RECORDS = 1 << 14;
+
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocateDirect(RECORD_BYTES);
+    private final BitSet completed = new BitSet();
+    private int unsynced;
+    private long lastSync;
+
+    /*
+     * Open the log for a campaign, creating it if needed. An existing log must
+     * have been written for the same grid size, seed and mode. A record cut
+     * short when the process was killed is dropped, that trial simply runs
+     * again.
+     *
+     * @param Path file - the log file
+     *
+     * @param int n - the grid size
+     *
+     * @param long seed - the master seed
+     *
+     * @param int mode - the ordinal of the trial mode
+     */
+    TrialLog(Path file, int n, long seed, int mode) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean done = false;
+        try {
+            if (this.channel.size() < HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).put(VERSION).put((byte) mode).putShort((short) 0).putInt(n).putLong(seed);
+                header.flip();
+                this.channel.truncate(0);
+                while (header.hasRemaining()) {
+                    this.channel.write(header, header.position());
+                }
+                this.channel.force(true);
+            } else {
+                ByteBuffer header = readHeader(this.channel);
+                if (header.get(5) != mode || header.getInt(8) != n || header.getLong(12) != seed) {
+                    throw new IOException("Error: TrialLog() " + file + " belongs to a different n, seed or mode");
+                }
+                long records = (this.channel.size() - HEADER_BYTES) / RECORD_BYTES;
+                this.channel.truncate(HEADER_BYTES + records * RECORD_BYTES);
+                scan(this.channel, record -> this.completed.set(record.getInt(0)));
+            }
+            this.channel.position(this.channel.size());
+            this.lastSync = System.nanoTime();
+            done = true;
+        } finally {
+            if (!done) {
+                this.channel.close();
+            }
+        }
+    }
+
+    boolean isCompleted(int trial) {
+        return this.completed.get(trial);
+    }
+
+    /*
+     * Append a completed trial. Called from every worker thread, so writes are
+     * serialized here. The record goes to the file immediately, which survives
+     * the process being killed, and the file is forced to the disk at most
+     * every SYNC_NANOS or SYNC_RECORDS records.
+     */
+    synchronized void append(int trial, long trialSeed, double openSites, long elapsedNanos) throws IOException {
+        ByteBuffer record = this.record;
+        record.clear();
+        record.putInt(trial).putLong(trialSeed).putInt((int) openSites).putLong(elapsedNanos);
+        record.flip();
+        while (record.hasRemaining()) {
+            this.channel.write(record);
+        }
+        this.completed.set(trial);
+        long now = System.nanoTime();
+        if (++this.unsynced >= SYNC_RECORDS || now - this.lastSync >= SYNC_NANOS) {
+            this.channel.force(false);
+            this.unsynced = 0;
+            this.lastSync = now;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            this.channel.force(false);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /*
+     * Statistics of the open site counts of trials 0 to trials - 1, in one
+     * streaming pass over the log so no trial results are held in memory. A
+     * trial logged twice is counted once.
+     *
+     * @param Path file - the log file
+     *
+     * @param int trials - the number of trials of the campaign
+     *
+     * @return RunningStats the statistics of the logged trials
+     */
+    static RunningStats summarize(Path file, int trials) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readHeader(channel);
+            BitSet seen = new BitSet(trials);
+            RunningStats stats = new RunningStats();
+            scan(channel, record -> {
+                int trial = record.getInt(0);
+                if (trial < trials && !seen.get(trial)) {
+                    seen.set(trial);
+                    stats.add(record.getInt(12));
+                }
+            });
+            return stats;
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IOException("Error: readHeader() not a trial log");
+        }
+        if (header.get(4) != VERSION) {
+            throw new IOException("Error: readHeader() unknown version " + header.get(4));
+        }
+        return header;
+    }
+
+    private interface RecordVisitor {
+        void visit(ByteBuffer record);
+    }
+
+    // hand every whole record to the visitor as a slice at position 0
+    private static void scan(FileChannel channel, RecordVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_RECORDS * RECORD_BYTES);
+        long position = HEADER_BYTES;
+        long end = HEADER_BYTES + (channel.size() - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Error: scan() log truncated while reading");
+                }
+            }
+            buffer.flip();
+            for (int offset = 0; offset < buffer.limit(); offset += RECORD_BYTES) {
+                visitor.visit(buffer.slice(offset, RECORD_BYTES));
+            }
+            position += buffer.limit();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+
+/*
+ * Algorithms and Data Structures Assignment
+ *
+ * @author David Morton
+ *
+ * UndoLog.java
+ */
+class UndoLog {
+
+    /*
+     * One entry per union or mark of a union find kept as parent links and a
+     * state byte per root: the node linked under another root (-1 for a
+     * mark), the root whose state changed, its old state and the old value
+     * of a counter the union find keeps alongside, its number of spanning
+     * roots or whether it percolates.
+     */
+    private int[] linkedNode = new int[16];
+    private int[] changedRoot = new int[16];
+    private byte[] oldState = new byte[16];
+    private int[] oldCounter = new int[16];
+    private int size;
+
+    /*
+     * @return int the number of entries, the point to roll back to
+     */
+    int size() {
+        return this.size;
+    }
+
+    /*
+     * Save what a union or mark is about to change, call before changing it.
+     *
+     * @param int linked - the node about to be linked under root, -1 for a
+     * mark
+     *
+     * @param int root - the root whose state is about to change
+     *
+     * @param byte state - the root's state before the change
+     *
+     * @param int counter - the counter before the change
+     */
+    void push(int linked, int root, byte state, int counter) {
+        if (this.size == this.linkedNode.length) {
+            int length = this.size * 2;
+            this.linkedNode = Arrays.copyOf(this.linkedNode, length);
+            this.changedRoot = Arrays.copyOf(this.changedRoot, length);
+            this.oldState = Arrays.copyOf(this.oldState, length);
+            this.oldCounter = Arrays.copyOf(this.oldCounter, length);
+        }
+        int k = this.size++;
+        this.linkedNode[k] = linked;
+        this.changedRoot[k] = root;
+        this.oldState[k] = state;
+        this.oldCounter[k] = counter;
+    }
+
+    /*
+     * Undo every entry past the checkpoint, latest first, unlinking each
+     * linked node and restoring each root's state.
+     *
+     * @param int checkpoint - a value returned by size()
+     *
+     * @param int[] parent - the parent links, a root is its own parent
+     *
+     * @param byte[] state - the state of each root
+     *
+     * @param int counter - the counter now
+     *
+     * @return int the counter as it was at the checkpoint
+     */
+    int rollback(int checkpoint, int[] parent, byte[] state, int counter) {
+        while (this.size > checkpoint) {
+            int k = --this.size;
+            int linked = this.linkedNode[k];
+            if (linked >= 0) {
+                parent[linked] = linked;
+            }
+            state[this.changedRoot[k]] = this.oldState[k];
+            counter = this.oldCounter[k];
+        }
+        return counter;
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+}
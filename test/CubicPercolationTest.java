@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class CubicPercolationTest {
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void Open_ZOutOfRange_ShouldThrowIndexOutOfBoundsException() {
+        new CubicPercolation(3).open(1, 1, 4);
+    }
+
+    @Test
+    public void Open_VerticalColumn_ShouldPercolateFaceToFace() {
+        CubicPercolation cube = new CubicPercolation(4);
+        for (int z = 1; z <= 3; z++) {
+            cube.open(2, 3, z);
+        }
+        assertFalse(cube.percolates());
+        cube.open(2, 3, 4);
+        assertTrue(cube.percolates());
+        assertTrue(cube.isFull(2, 3, 4));
+        // a site joined only to the bottom face does not become full through it
+        cube.open(1, 1, 4);
+        assertFalse(cube.isFull(1, 1, 4));
+    }
+
+    @Test
+    public void Open_RandomCubes_ShouldMatchFloodFill() {
+        Random random = new Random(13);
+        int[][] steps = { { 1, 0, 0 }, { -1, 0, 0 }, { 0, 1, 0 }, { 0, -1, 0 }, { 0, 0, 1 }, { 0, 0, -1 } };
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 2 + random.nextInt(9);
+            boolean[][][] open = new boolean[n][n][n];
+            CubicPercolation cube = new CubicPercolation(n);
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    for (int z = 0; z < n; z++) {
+                        if (random.nextDouble() < 0.35) {
+                            open[x][y][z] = true;
+                            cube.open(x + 1, y + 1, z + 1);
+                        }
+                    }
+                }
+            }
+            boolean[][][] full = new boolean[n][n][n];
+            ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    if (open[x][y][0]) {
+                        full[x][y][0] = true;
+                        queue.add(new int[] { x, y, 0 });
+                    }
+                }
+            }
+            while (!queue.isEmpty()) {
+                int[] site = queue.poll();
+                for (int[] step : steps) {
+                    int x = site[0] + step[0];
+                    int y = site[1] + step[1];
+                    int z = site[2] + step[2];
+                    if (x >= 0 && x < n && y >= 0 && y < n && z >= 0 && z < n && open[x][y][z] && !full[x][y][z]) {
+                        full[x][y][z] = true;
+                        queue.add(new int[] { x, y, z });
+                    }
+                }
+            }
+            boolean percolates = false;
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    percolates |= full[x][y][n - 1];
+                    for (int z = 0; z < n; z++) {
+                        assertEquals(full[x][y][z], cube.isFull(x + 1, y + 1, z + 1));
+                    }
+                }
+            }
+            assertEquals(percolates, cube.percolates());
+        }
+    }
+
+    @Test
+    public void Threshold_ParallelTrials_ShouldBeNearCubicSiteThreshold() {
+        CubicPercolationStats stats = new CubicPercolationStats(32, 40, 2L, ForkJoinPool.commonPool());
+        assertEquals(0.3116, stats.threshold(), 0.02);
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DynamicPercolationTest {
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void Close_OutOfRange_ShouldThrowIndexOutOfBoundsException() {
+        new DynamicPercolation(3).close(0, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Percolates_BeforeSolve_ShouldThrowIllegalStateException() {
+        DynamicPercolation dynamic = new DynamicPercolation(3);
+        dynamic.open(1, 1);
+        dynamic.percolates(0);
+    }
+
+    @Test
+    public void Solve_OpenPair_ShouldStoreTheirEdgeOnce() {
+        DynamicPercolation dynamic = new DynamicPercolation(3);
+        dynamic.open(1, 1);
+        dynamic.open(1, 2);
+        dynamic.solve();
+        // two top flags and the one edge between the sites
+        assertEquals(3, dynamic.numberOfItems());
+    }
+
+    @Test
+    public void Close_BridgeSite_ShouldStopPercolating() {
+        DynamicPercolation dynamic = new DynamicPercolation(3);
+        dynamic.open(1, 2);
+        dynamic.open(2, 2);
+        dynamic.open(3, 2);
+        int before = dynamic.queryFull(3, 2);
+        dynamic.close(2, 2);
+        int after = dynamic.queryFull(3, 2);
+        dynamic.open(2, 2);
+        dynamic.solve();
+        assertFalse(dynamic.percolates(1));
+        assertTrue(dynamic.percolates(2));
+        assertFalse(dynamic.percolates(3));
+        assertTrue(dynamic.percolates(4));
+        assertTrue(dynamic.isFull(before));
+        assertFalse(dynamic.isFull(after));
+    }
+
+    @Test
+    public void Solve_RandomOpenAndClose_ShouldMatchRebuildingPercolation() {
+        Random random = new Random(19);
+        for (int trial = 0; trial < 40; trial++) {
+            int n = 2 + random.nextInt(6);
+            boolean[] open = new boolean[n * n];
+            DynamicPercolation dynamic = new DynamicPercolation(n);
+            List<Boolean> expectedPercolates = new ArrayList<Boolean>();
+            List<Integer> queries = new ArrayList<Integer>();
+            List<Boolean> expectedFull = new ArrayList<Boolean>();
+            int events = 1 + random.nextInt(4 * n * n);
+            for (int event = 0; event < events; event++) {
+                int site = random.nextInt(n * n);
+                // open more often than close so the grid gets near the threshold
+                if (random.nextInt(3) > 0) {
+                    open[site] = true;
+                    dynamic.open(site / n + 1, site % n + 1);
+                } else {
+                    open[site] = false;
+                    dynamic.close(site / n + 1, site % n + 1);
+                }
+                Percolation rebuilt = new Percolation(n);
+                for (int k = 0; k < n * n; k++) {
+                    if (open[k]) {
+                        rebuilt.open(k / n + 1, k % n + 1);
+                    }
+                }
+                expectedPercolates.add(rebuilt.percolates());
+                int query = random.nextInt(n * n);
+                queries.add(dynamic.queryFull(query / n + 1, query % n + 1));
+                expectedFull.add(rebuilt.isFull(query / n + 1, query % n + 1));
+            }
+            dynamic.solve();
+            assertEquals(events, dynamic.numberOfEvents());
+            for (int event = 0; event < events; event++) {
+                assertEquals(expectedPercolates.get(event), dynamic.percolates(event));
+                assertEquals(expectedFull.get(event), dynamic.isFull(queries.get(event)));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExperimentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Parse_UnknownKey_ShouldThrowIllegalArgumentException() throws IOException {
+        Experiment.parse(new String[] { "--sizes=10", "--trials=5", "--trails=6" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_CriticalIndexOnWeightedQuickUnion_ShouldThrowIllegalArgumentException() {
+        new Experiment(new int[] { 10 }, 5, 1L, PercolationStats.TrialMode.CRITICAL_INDEX,
+                Percolation.Backend.WEIGHTED_QUICK_UNION, 1, Experiment.Format.CSV);
+    }
+
+    @Test
+    public void Parse_SpecFileAndOptions_ShouldLetOptionsWin() throws IOException {
+        Path file = this.folder.newFile("nightly.properties").toPath();
+        Files.write(file, Arrays.asList("sizes=10,20", "trials=5", "seed=3", "engine=permutation"));
+        Properties spec = Experiment.parse(new String[] { "--spec=" + file, "--trials=7" });
+        assertEquals("10,20", spec.getProperty("sizes"));
+        assertEquals("7", spec.getProperty("trials"));
+        assertEquals("permutation", spec.getProperty("engine"));
+    }
+
+    @Test
+    public void Run_SameSeedDifferentThreads_ShouldWriteSameResults() {
+        String[] single = trialColumns(csv(new int[] { 10, 30 }, 40, 11L, PercolationStats.TrialMode.CRITICAL_INDEX,
+                Percolation.Backend.FLAT, 1));
+        String[] many = trialColumns(csv(new int[] { 10, 30 }, 40, 11L, PercolationStats.TrialMode.CRITICAL_INDEX,
+                Percolation.Backend.FLAT, 4));
+        assertEquals(1 + 2 * 40, single.length);
+        assertEquals(String.join("\n", single), String.join("\n", many));
+    }
+
+    @Test
+    public void Run_Csv_ShouldMatchPercolationStatsWithTheSeed() {
+        String[] lines = csv(new int[] { 20 }, 30, 7L, PercolationStats.TrialMode.CRITICAL_INDEX,
+                Percolation.Backend.FLAT, 2).split("\n");
+        double sum = 0;
+        for (int k = 1; k < lines.length; k++) {
+            sum += Long.parseLong(lines[k].split(",")[3]);
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(new PercolationStats(20, 30, 7L, pool).mean(), sum / 30, 1e-9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void Run_PermutationOnEachBackend_ShouldOpenTheSameSites() {
+        assertEquals(String.join("\n", trialColumns(csv(new int[] { 16 }, 20, 5L,
+                PercolationStats.TrialMode.PERMUTATION, Percolation.Backend.FLAT, 1))),
+                String.join("\n", trialColumns(csv(new int[] { 16 }, 20, 5L,
+                        PercolationStats.TrialMode.PERMUTATION, Percolation.Backend.WEIGHTED_QUICK_UNION, 1))));
+    }
+
+    @Test
+    public void Run_Json_ShouldWriteSpecThenTrialsAndSummaryPerSize() {
+        String[] lines = run(new Experiment(new int[] { 8, 12 }, 1, 2L, PercolationStats.TrialMode.REJECTION,
+                Percolation.Backend.FLAT, 1, Experiment.Format.JSON)).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{\"record\":\"spec\",\"sizes\":[8,12],\"trials\":1,\"seed\":2,"));
+        assertTrue(lines[1].startsWith("{\"record\":\"trial\",\"n\":8,\"trial\":0,"));
+        assertTrue(lines[2].startsWith("{\"record\":\"summary\",\"n\":8,\"trials\":1,"));
+        // one trial has no standard deviation, JSON has no NaN
+        assertTrue(lines[2].contains("\"stddev\":null"));
+        assertTrue(lines[4].startsWith("{\"record\":\"summary\",\"n\":12,"));
+        for (String line : lines) {
+            assertTrue(line.endsWith("}") && !line.contains("NaN"));
+        }
+    }
+
+    @Test
+    public void Run_NonAsciiDigitLocale_ShouldWriteAsciiDigits() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("ar-EG-u-nu-arab"));
+        try {
+            for (Experiment.Format format : Experiment.Format.values()) {
+                String out = run(new Experiment(new int[] { 12 }, 3, 4L, PercolationStats.TrialMode.CRITICAL_INDEX,
+                        Percolation.Backend.FLAT, 1, format));
+                assertTrue(format + " output has non-ASCII characters", out.chars().allMatch(c -> c < 128));
+            }
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    private static String csv(int[] sizes, int trials, long seed, PercolationStats.TrialMode engine,
+            Percolation.Backend backend, int threads) {
+        return run(new Experiment(sizes, trials, seed, engine, backend, threads, Experiment.Format.CSV));
+    }
+
+    private static String run(Experiment experiment) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            experiment.run(new PrintStream(bytes, true, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // every CSV line without the elapsed_nanos column, the only one timing changes
+    private static String[] trialColumns(String csv) {
+        String[] lines = csv.split("\n");
+        for (int k = 0; k < lines.length; k++) {
+            lines[k] = lines[k].substring(0, lines[k].lastIndexOf(','));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,113 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class HoshenKopelmanTest {
+
+    @Test
+    public void Analyze_SingleColumn_ShouldPercolateWithSpanningSize() {
+        boolean[][] grid = new boolean[4][4];
+        for (int i = 0; i < 4; i++) {
+            grid[i][2] = true;
+        }
+        grid[0][0] = true;
+        HoshenKopelman sweep = HoshenKopelman.analyze(grid);
+        assertTrue(sweep.percolates());
+        assertEquals(4, sweep.spanningClusterSize());
+        assertEquals(2, sweep.numberOfClusters());
+        assertEquals(5, sweep.numberOfOpenSites());
+    }
+
+    @Test
+    public void Analyze_UShapedCluster_ShouldMergeAcrossRows() {
+        boolean[][] grid = {
+                { true, false, true },
+                { true, false, true },
+                { true, true, true } };
+        HoshenKopelman sweep = HoshenKopelman.analyze(grid);
+        assertEquals(1, sweep.numberOfClusters());
+        assertEquals(7, sweep.spanningClusterSize());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Percolates_BeforeFinish_ShouldThrowIllegalStateException() {
+        HoshenKopelman sweep = new HoshenKopelman(3);
+        sweep.addRow(new boolean[3]);
+        sweep.percolates();
+    }
+
+    @Test
+    public void Analyze_RandomGrids_ShouldMatchFloodFillAndPercolation() {
+        Random random = new Random(12);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 2 + random.nextInt(30);
+            double p = random.nextDouble();
+            boolean[][] grid = new boolean[n][n];
+            Percolation perc = new Percolation(n);
+            HoshenKopelman packed = new HoshenKopelman(n);
+            for (int i = 0; i < n; i++) {
+                long[] bits = new long[1];
+                for (int j = 0; j < n; j++) {
+                    grid[i][j] = random.nextDouble() < p;
+                    if (grid[i][j]) {
+                        perc.open(i + 1, j + 1);
+                        bits[0] |= 1L << j;
+                    }
+                }
+                packed.addRow(bits);
+            }
+            packed.finish();
+            HoshenKopelman sweep = HoshenKopelman.analyze(grid);
+
+            // flood fill every cluster for the expected answers
+            Map<Long, Long> histogram = new TreeMap<Long, Long>();
+            long spanning = 0;
+            boolean[][] seen = new boolean[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (!grid[i][j] || seen[i][j]) {
+                        continue;
+                    }
+                    long size = 0;
+                    boolean top = false;
+                    boolean bottom = false;
+                    ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+                    queue.add(new int[] { i, j });
+                    seen[i][j] = true;
+                    while (!queue.isEmpty()) {
+                        int[] site = queue.poll();
+                        size++;
+                        top |= site[0] == 0;
+                        bottom |= site[0] == n - 1;
+                        int[][] neighbours = { { site[0] - 1, site[1] }, { site[0] + 1, site[1] },
+                                { site[0], site[1] - 1 }, { site[0], site[1] + 1 } };
+                        for (int[] next : neighbours) {
+                            if (next[0] >= 0 && next[0] < n && next[1] >= 0 && next[1] < n
+                                    && grid[next[0]][next[1]] && !seen[next[0]][next[1]]) {
+                                seen[next[0]][next[1]] = true;
+                                queue.add(next);
+                            }
+                        }
+                    }
+                    histogram.merge(size, 1L, Long::sum);
+                    if (top && bottom) {
+                        spanning = Math.max(spanning, size);
+                    }
+                }
+            }
+            assertEquals(perc.percolates(), sweep.percolates());
+            assertEquals(histogram, sweep.clusterSizeHistogram());
+            assertEquals(spanning, sweep.spanningClusterSize());
+            assertEquals(histogram, packed.clusterSizeHistogram());
+            assertEquals(perc.numberOfOpenSites(), sweep.numberOfOpenSites());
+        }
+        assertFalse(HoshenKopelman.analyze(new boolean[2][2]).percolates());
+    }
+}
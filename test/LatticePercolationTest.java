@@ -0,0 +1,152 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatticePercolationTest {
+
+    // the neighbours of each lattice as (row, column) steps, written out independently of the deltas
+    private static int[][] steps(Lattices lattice, int row, int column) {
+        switch (lattice) {
+        case SQUARE_4:
+            return new int[][] { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+        case SQUARE_8:
+            return new int[][] { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 }, { 1, -1 },
+                    { 1, 1 } };
+        case TRIANGULAR:
+            return new int[][] { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, 1 }, { 1, -1 } };
+        default:
+            return new int[][] { { 0, -1 }, { 0, 1 }, { (row + column) % 2 == 0 ? 1 : -1, 0 } };
+        }
+    }
+
+    // sites reachable from the open top row sites by breadth first search
+    private static boolean[][] flood(Lattices lattice, boolean[][] open) {
+        int n = open.length;
+        boolean[][] full = new boolean[n][n];
+        ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+        for (int j = 0; j < n; j++) {
+            if (open[0][j]) {
+                full[0][j] = true;
+                queue.add(new int[] { 0, j });
+            }
+        }
+        while (!queue.isEmpty()) {
+            int[] site = queue.poll();
+            for (int[] step : steps(lattice, site[0], site[1])) {
+                int r = site[0] + step[0];
+                int c = site[1] + step[1];
+                if (r >= 0 && r < n && c >= 0 && c < n && open[r][c] && !full[r][c]) {
+                    full[r][c] = true;
+                    queue.add(new int[] { r, c });
+                }
+            }
+        }
+        return full;
+    }
+
+    @Test
+    public void Open_RandomGrids_ShouldMatchFloodFillOnEveryLattice() {
+        Random random = new Random(17);
+        for (Lattices lattice : Lattices.values()) {
+            for (int trial = 0; trial < 40; trial++) {
+                int n = 2 + random.nextInt(25);
+                double p = 0.3 + 0.5 * random.nextDouble();
+                boolean[][] open = new boolean[n][n];
+                LatticePercolation perc = new LatticePercolation(n, lattice);
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        if (random.nextDouble() < p) {
+                            open[i][j] = true;
+                            perc.open(i + 1, j + 1);
+                        }
+                    }
+                }
+                boolean[][] full = flood(lattice, open);
+                boolean percolates = false;
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        assertEquals(lattice + " n=" + n, full[i][j], perc.isFull(i + 1, j + 1));
+                    }
+                    percolates |= full[n - 1][i];
+                }
+                assertEquals(percolates, perc.percolates());
+            }
+        }
+    }
+
+    @Test
+    public void Open_Square4_ShouldMatchPercolation() {
+        int n = 50;
+        Random random = new Random(2);
+        Percolation expected = new Percolation(n);
+        LatticePercolation actual = new LatticePercolation(n, Lattices.SQUARE_4);
+        for (int k = 0; k < n * n; k++) {
+            int site = random.nextInt(n * n);
+            if (!expected.isOpen(site / n + 1, site % n + 1)) {
+                expected.open(site);
+            }
+            actual.open(site);
+            assertEquals(expected.percolates(), actual.percolates());
+        }
+        assertEquals(expected.numberOfOpenSites(), actual.numberOfOpenSites());
+    }
+
+    // fraction of sites open when a random order first percolates, averaged
+    private static double threshold(Lattices lattice, int n, int trials, Random random) {
+        double sum = 0;
+        for (int t = 0; t < trials; t++) {
+            LatticePercolation perc = new LatticePercolation(n, lattice);
+            while (!perc.percolates()) {
+                perc.open(random.nextInt(n * n));
+            }
+            sum += (double) perc.numberOfOpenSites() / (n * n);
+        }
+        return sum / trials;
+    }
+
+    @Test
+    public void Threshold_EachLattice_ShouldBeNearKnownValue() {
+        Random random = new Random(5);
+        assertEquals(0.5927, threshold(Lattices.SQUARE_4, 64, 40, random), 0.03);
+        assertEquals(0.4073, threshold(Lattices.SQUARE_8, 64, 40, random), 0.03);
+        assertEquals(0.5, threshold(Lattices.TRIANGULAR, 64, 40, random), 0.03);
+        assertEquals(0.6970, threshold(Lattices.HEXAGONAL, 64, 40, random), 0.03);
+    }
+
+    @Test
+    public void OpenBond_RandomOrder_ShouldPercolateNearHalfOnSquareLattice() {
+        int n = 64;
+        Random random = new Random(6);
+        double sum = 0;
+        for (int t = 0; t < 40; t++) {
+            BondPercolation perc = new BondPercolation(n, Lattices.SQUARE_4);
+            while (!perc.percolates()) {
+                int bond = random.nextInt(perc.bondSlots());
+                if (perc.isBond(bond)) {
+                    perc.openBond(bond);
+                }
+            }
+            sum += (double) perc.numberOfOpenBonds() / (2 * n * (n - 1));
+        }
+        assertEquals(0.5, sum / 40, 0.03);
+    }
+
+    @Test
+    public void OpenBond_VerticalChain_ShouldFillColumnOnly() {
+        int n = 4;
+        BondPercolation perc = new BondPercolation(n, Lattices.SQUARE_4);
+        // square bonds are down then right, in the order of the deltas after the site
+        for (int row = 0; row < n - 1; row++) {
+            perc.openBond((row * n + 1) * 2);
+        }
+        assertTrue(perc.percolates());
+        assertTrue(perc.isFull(4, 2));
+        assertFalse(perc.isFull(4, 3));
+        assertFalse(perc.isBond((n * n - 1) * 2));
+    }
+}
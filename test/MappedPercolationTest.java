@@ -0,0 +1,76 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedPercolationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_NEqualsOne_ShouldThrowIllegalArgumentException() throws IOException {
+        new MappedPercolation(1, this.folder.getRoot().toPath()).close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void Open_ArgumentJGreaterThanN_ShouldThrowIndexOutOfBoundsException() throws IOException {
+        try (MappedPercolation ps = new MappedPercolation(10, this.folder.getRoot().toPath())) {
+            ps.open(2, 11);
+        }
+    }
+
+    @Test
+    public void Constructor_TwoGridsInOneDirectory_ShouldNotShareFiles() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        try (MappedPercolation first = new MappedPercolation(5, directory)) {
+            first.open(1, 1);
+            first.open(2, 1);
+            try (MappedPercolation second = new MappedPercolation(5, directory)) {
+                assertFalse(second.isOpen(1, 1));
+                second.open(5, 5);
+            }
+            assertTrue(first.isFull(2, 1));
+            assertFalse(first.isOpen(5, 5));
+        }
+        assertEquals(0, fileCount(directory));
+    }
+
+    @Test
+    public void Open_SmallChunks_ShouldMatchPercolation() throws IOException {
+        int n = 30;
+        Percolation expected = new Percolation(n);
+        // 64 byte chunks, so the parent file alone spans more than a hundred mappings
+        try (MappedPercolation actual = new MappedPercolation(n, this.folder.getRoot().toPath(), 6)) {
+            Random random = new Random(5);
+            while (!expected.percolates()) {
+                int i = random.nextInt(n) + 1;
+                int j = random.nextInt(n) + 1;
+                expected.open(i, j);
+                actual.open(i, j);
+                assertEquals(expected.percolates(), actual.percolates());
+            }
+            for (int i = 1; i <= n; i++) {
+                for (int j = 1; j <= n; j++) {
+                    assertEquals(expected.isOpen(i, j), actual.isOpen(i, j));
+                    assertEquals(expected.isFull(i, j), actual.isFull(i, j));
+                }
+            }
+        }
+    }
+
+    private static long fileCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelPercolationAnalyzerTest {
+
+    @Test
+    public void Analyze_RandomGrids_ShouldMatchPercolationForEveryStripHeight() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(7);
+            for (int trial = 0; trial < 150; trial++) {
+                int n = 2 + random.nextInt(70);
+                double p = 0.45 + 0.3 * random.nextDouble();
+                Percolation perc = new Percolation(n);
+                for (int i = 1; i <= n; i++) {
+                    for (int j = 1; j <= n; j++) {
+                        if (random.nextDouble() < p) {
+                            perc.open(i, j);
+                        }
+                    }
+                }
+                long[][] rows = new long[n][(n + 63) >>> 6];
+                for (int i = 1; i <= n; i++) {
+                    perc.copyRow(i, rows[i - 1]);
+                }
+                int stripHeight = 1 + random.nextInt(n);
+                ParallelPercolationAnalyzer analyzer = new ParallelPercolationAnalyzer(rows, pool, stripHeight);
+                assertEquals(perc.percolates(), analyzer.percolates());
+                for (int i = 1; i <= n; i++) {
+                    for (int j = 1; j <= n; j++) {
+                        assertEquals(perc.isFull(i, j), analyzer.isFull(i, j));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void Analyze_PathWindingThroughStrips_ShouldBeFull() {
+        // a serpentine path that leaves every strip of height 1 sideways
+        int n = 5;
+        long[][] rows = new long[n][1];
+        rows[0][0] = 0b00001;
+        rows[1][0] = 0b11111;
+        rows[2][0] = 0b10000;
+        rows[3][0] = 0b11111;
+        rows[4][0] = 0b00001;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelPercolationAnalyzer analyzer = new ParallelPercolationAnalyzer(rows, pool, 1);
+            assertTrue(analyzer.percolates());
+            assertTrue(analyzer.isFull(5, 1));
+            assertFalse(analyzer.isFull(3, 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void IsFull_OutOfRange_ShouldThrowIndexOutOfBoundsException() {
+        new ParallelPercolationAnalyzer(new long[3][1], ForkJoinPool.commonPool()).isFull(4, 1);
+    }
+}
@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PercolationMetricsTest {
+
+    private final PercolationMetrics metrics = PercolationMetrics.INSTANCE;
+
+    @Before
+    public void setUp() {
+        this.metrics.reset();
+    }
+
+    @Test
+    public void Flush_SeveralFinds_ShouldAverageAndBucketTheSteps() {
+        PercolationMetrics.Counts counts = new PercolationMetrics.Counts();
+        counts.find(0);
+        counts.find(2);
+        counts.find(4);
+        counts.find(100);
+        assertEquals(0, this.metrics.getFinds());
+        counts.flush();
+        assertEquals(4, this.metrics.getFinds());
+        assertEquals(26.5, this.metrics.getAverageFindSteps(), 1e-12);
+        assertEquals(100, this.metrics.getMaxFindSteps());
+        long[] histogram = this.metrics.getFindStepHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[4]);
+        // the last bucket takes every longer find
+        assertEquals(1, histogram[histogram.length - 1]);
+    }
+
+    @Test
+    public void RecordTrial_TwoTrials_ShouldAverageOpenSitesDrawsAndTimes() {
+        PercolationMetrics.recordTrial(100, 2000000, 1000000);
+        PercolationMetrics.recordTrial(300, 4000000, 3000000);
+        PercolationMetrics.recordDraws(600);
+        assertEquals(2, this.metrics.getTrials());
+        assertEquals(200, this.metrics.getAverageOpenSites(), 1e-12);
+        assertEquals(1.5, this.metrics.getDrawsPerOpenSite(), 1e-12);
+        assertEquals(3, this.metrics.getAverageTrialWallMillis(), 1e-12);
+        assertEquals(2, this.metrics.getAverageTrialCpuMillis(), 1e-12);
+        assertEquals(4, this.metrics.getMaxTrialWallMillis());
+        assertTrue(this.metrics.summary().startsWith("metrics trials=2 open_sites=200.0"));
+    }
+
+    @Test
+    public void Summary_CommaDecimalLocale_ShouldWriteDecimalPoints() {
+        PercolationMetrics.recordTrial(100, 2000000, 1000000);
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            assertTrue(this.metrics.summary().startsWith("metrics trials=1 open_sites=100.0 "));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void Register_Twice_ShouldExposeTheMetricsAsOneMBean() throws Exception {
+        PercolationMetrics.register();
+        PercolationMetrics.register();
+        PercolationMetrics.Counts counts = new PercolationMetrics.Counts();
+        counts.union();
+        counts.flush();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(PercolationMetrics.OBJECT_NAME);
+        assertEquals(1L, server.getAttribute(name, "Unions"));
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0L, server.getAttribute(name, "Unions"));
+        assertArrayEquals(new long[32], (long[]) server.getAttribute(name, "FindStepHistogram"));
+    }
+}
@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PercolationReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String text) throws IOException {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    public void Replay_TextFile_ShouldReportPercolationStep() throws IOException {
+        Path file = write("3\n 1 1\n2 1\n2 1\r\n3   1\n3 3\n");
+        PercolationReplay replay = new PercolationReplay(file);
+        assertEquals(3, replay.gridSize());
+        assertEquals(5, replay.sitesRead());
+        assertEquals(4, replay.numberOfOpenSites());
+        assertEquals(4, replay.percolationStep());
+    }
+
+    @Test
+    public void Replay_NoPercolation_ShouldReportMinusOne() throws IOException {
+        PercolationReplay replay = new PercolationReplay(write("4\n1 1\n"));
+        assertEquals(-1, replay.percolationStep());
+    }
+
+    @Test
+    public void Convert_VarintAndInt32_ShouldReplayLikeText() throws IOException {
+        StringBuilder text = new StringBuilder("300\n");
+        for (int i = 1; i <= 300; i++) {
+            text.append(i).append(' ').append(200).append('\n');
+        }
+        Path source = write(text.toString());
+        PercolationReplay expected = new PercolationReplay(source);
+        for (boolean varint : new boolean[] { true, false }) {
+            Path binary = this.folder.newFile().toPath();
+            PercolationReplay.convert(source, binary, varint);
+            PercolationReplay actual = new PercolationReplay(binary);
+            assertEquals(expected.gridSize(), actual.gridSize());
+            assertEquals(expected.sitesRead(), actual.sitesRead());
+            assertEquals(expected.percolationStep(), actual.percolationStep());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.princeton.cs.algs4.StdStats;
+
+public class PercolationStatsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void Constructor_SameSeedDifferentThreads_ShouldGiveSameResults() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            PercolationStats a = new PercolationStats(20, 50, 7L, single);
+            PercolationStats b = new PercolationStats(20, 50, 7L, many);
+            assertEquals(a.mean(), b.mean(), 0.0);
+            assertEquals(a.stddev(), b.stddev(), 0.0);
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    @Test
+    public void Run_SameSeed_ShouldGiveSameResultAtEachIndex() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            double[] a = ParallelTrialRunner.run(pool, 37, 11L, () -> random -> random.nextInt(1000));
+            double[] b = ParallelTrialRunner.run(ForkJoinPool.commonPool(), 37, 11L, () -> random -> random.nextInt(1000));
+            assertArrayEquals(a, b, 0.0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void Run_TwoRunsOnOnePool_ShouldMakeTrialsPerWorkerPerRun() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        AtomicInteger made = new AtomicInteger();
+        try {
+            for (int run = 1; run <= 2; run++) {
+                ParallelTrialRunner.run(pool, 200, 3L, () -> {
+                    made.incrementAndGet();
+                    return random -> random.nextInt(10);
+                });
+                // one per thread that ran trials, the two workers and perhaps the
+                // caller, and at least one more than the run before
+                assertTrue(made.get() >= run && made.get() <= 3 * run);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void Mean_ParallelTrials_ShouldBeNearThreshold() {
+        PercolationStats ps = new PercolationStats(50, 100, 1L, ForkJoinPool.commonPool());
+        assertEquals(0.593, ps.mean() / (50 * 50), 0.03);
+    }
+
+    @Test
+    public void Mean_PermutationAndRejectionModes_ShouldAgreeOnThreshold() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        PercolationStats permutation = new PercolationStats(40, 200, 3L, pool, PercolationStats.TrialMode.PERMUTATION);
+        PercolationStats rejection = new PercolationStats(40, 200, 3L, pool, PercolationStats.TrialMode.REJECTION);
+        assertEquals(rejection.mean() / (40 * 40), permutation.mean() / (40 * 40), 0.02);
+    }
+
+    @Test
+    public void Constructor_CriticalIndexMode_ShouldMatchPermutationMode() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        PercolationStats permutation = new PercolationStats(30, 40, 9L, pool, PercolationStats.TrialMode.PERMUTATION);
+        PercolationStats critical = new PercolationStats(30, 40, 9L, pool, PercolationStats.TrialMode.CRITICAL_INDEX);
+        assertEquals(permutation.mean(), critical.mean(), 0.0);
+        assertEquals(permutation.stddev(), critical.stddev(), 0.0);
+    }
+
+    @Test
+    public void CriticalIndex_RowMajorOrder_ShouldPercolateOnLastSiteOfFirstColumnPath() {
+        int n = 5;
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // row-major order completes the first column when the bottom row starts
+        assertEquals(n * (n - 1) + 1, new CriticalIndexEngine(n).criticalIndex(order));
+    }
+
+    // trial logs
+    @Test
+    public void Constructor_ResumedLog_ShouldMatchUninterruptedRun() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Path log = this.folder.getRoot().toPath().resolve("trials.log");
+            PercolationStats.TrialMode mode = PercolationStats.TrialMode.CRITICAL_INDEX;
+            new PercolationStats(25, 20, 5L, pool, mode, log);
+            // a record cut short by a kill is dropped and its trial rerun
+            Files.write(log, new byte[] { 0, 0, 0 }, StandardOpenOption.APPEND);
+            PercolationStats resumed = new PercolationStats(25, 60, 5L, pool, mode, log);
+            PercolationStats uninterrupted = new PercolationStats(25, 60, 5L, pool, mode);
+            assertEquals(TrialLog.HEADER_BYTES + 60 * TrialLog.RECORD_BYTES, Files.size(log));
+            assertEquals(uninterrupted.mean(), resumed.mean(), 1e-9);
+            assertEquals(uninterrupted.stddev(), resumed.stddev(), 1e-9);
+            assertEquals(uninterrupted.confidenceLo(), resumed.confidenceLo(), 1e-9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void Constructor_LogOfOtherSeed_ShouldThrowIOException() throws IOException {
+        Path log = this.folder.getRoot().toPath().resolve("trials.log");
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        new PercolationStats(10, 5, 1L, pool, PercolationStats.TrialMode.CRITICAL_INDEX, log);
+        new PercolationStats(10, 5, 2L, pool, PercolationStats.TrialMode.CRITICAL_INDEX, log);
+    }
+
+    // streaming statistics
+    @Test
+    public void RunningStats_LargeOffset_ShouldMatchStdStats() {
+        Random random = new Random(4);
+        double[] values = new double[1000];
+        RunningStats stats = new RunningStats();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e9 + random.nextInt(1000);
+            stats.add(values[i]);
+        }
+        assertEquals(StdStats.mean(values), stats.mean(), 1e-3);
+        assertEquals(StdStats.stddev(values), stats.stddev(), 1e-6);
+    }
+
+    @Test
+    public void UntilPrecision_SameSeedDifferentThreads_ShouldStopAtSameTrial() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            PercolationStats a = PercolationStats.untilPrecision(30, 0.01, 5000, 3L, single,
+                    PercolationStats.TrialMode.CRITICAL_INDEX);
+            PercolationStats b = PercolationStats.untilPrecision(30, 0.01, 5000, 3L, many,
+                    PercolationStats.TrialMode.CRITICAL_INDEX);
+            assertEquals(a.numberOfTrials(), b.numberOfTrials());
+            assertEquals(a.mean(), b.mean(), 0.0);
+            assertTrue(a.numberOfTrials() < 5000);
+            assertTrue(a.confidenceHi() - a.mean() <= 0.01 * a.mean());
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    @Test
+    public void UntilPrecision_UnreachableTarget_ShouldStopAtMaxTrials() {
+        PercolationStats ps = PercolationStats.untilPrecision(10, 1e-9, 100, 3L, ForkJoinPool.commonPool(),
+                PercolationStats.TrialMode.CRITICAL_INDEX);
+        assertEquals(100, ps.numberOfTrials());
+    }
+}
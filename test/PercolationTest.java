@@ -1,3 +1,9 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
 import org.junit.Test;
 
 public class PercolationTest {
@@ -20,6 +26,12 @@ public class PercolationTest {
         Percolation ps = new Percolation(1);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_NSquaredOverflowsInt_ShouldThrowIllegalArgumentException() {
+        @SuppressWarnings("unused")
+        Percolation ps = new Percolation(46341);
+    }
+
     // open()
     @Test(expected = IndexOutOfBoundsException.class)
     public void Open_ZeroArgumentI_ShouldThrowIndexOutOfBoundsException() {
@@ -121,4 +133,357 @@ public class PercolationTest {
         ps.open(4, 5);
         ps.isFull(4, 5);
     }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void Open_ArgumentJGreaterThanN_ShouldThrowIndexOutOfBoundsException() {
+        Percolation ps = new Percolation(200);
+        ps.open(2, 201);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void IsOpen_ArgumentIGreaterThanN_ShouldThrowIndexOutOfBoundsException() {
+        Percolation ps = new Percolation(200);
+        ps.isOpen(201, 2);
+    }
+
+    // backends
+    @Test
+    public void Backends_SameOpenSequence_ShouldAgree() {
+        int n = 20;
+        Percolation flat = new Percolation(n, Percolation.Backend.FLAT);
+        Percolation library = new Percolation(n, Percolation.Backend.WEIGHTED_QUICK_UNION);
+        Random random = new Random(42);
+        while (!library.percolates()) {
+            int i = random.nextInt(n) + 1;
+            int j = random.nextInt(n) + 1;
+            flat.open(i, j);
+            library.open(i, j);
+            assertEquals(library.percolates(), flat.percolates());
+        }
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                assertEquals(library.isOpen(i, j), flat.isOpen(i, j));
+                assertEquals(library.isFull(i, j), flat.isFull(i, j));
+            }
+        }
+    }
+
+    // backwash
+    @Test
+    public void IsFull_BottomSiteAfterPercolation_ShouldNotBackwash() {
+        int n = 3;
+        Percolation ps = new Percolation(n);
+        ps.open(1, 1);
+        ps.open(2, 1);
+        ps.open(3, 1);
+        ps.open(3, 3);
+        assertTrue(ps.percolates());
+        assertFalse(ps.isFull(3, 3));
+    }
+
+    @Test
+    public void IsFull_LibraryBackendAfterPercolation_ShouldNotBackwash() {
+        int n = 3;
+        Percolation ps = new Percolation(n, Percolation.Backend.WEIGHTED_QUICK_UNION);
+        ps.open(1, 1);
+        ps.open(2, 1);
+        ps.open(3, 1);
+        ps.open(3, 3);
+        assertTrue(ps.percolates());
+        assertFalse(ps.isFull(3, 3));
+        assertTrue(ps.isFull(3, 1));
+    }
+
+    // open(site)
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void OpenSite_NegativeIndex_ShouldThrowIndexOutOfBoundsException() {
+        Percolation ps = new Percolation(20);
+        ps.open(-1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void OpenSite_IndexEqualToNSquared_ShouldThrowIndexOutOfBoundsException() {
+        Percolation ps = new Percolation(20);
+        ps.open(400);
+    }
+
+    @Test
+    public void OpenSite_FlatIndex_ShouldOpenMatchingRowAndColumn() {
+        Percolation ps = new Percolation(20);
+        ps.open(2 * 20 + 4);
+        assertTrue(ps.isOpen(3, 5));
+    }
+
+    // bulk operations
+    @Test
+    public void OpenRow_RandomMasks_ShouldMatchSiteBySiteOpen() {
+        int n = 130;
+        int words = (n + 63) / 64;
+        Percolation expected = new Percolation(n);
+        Percolation actual = new Percolation(n);
+        Random random = new Random(8);
+        long[] mask = new long[words];
+        for (int pass = 0; pass < 3; pass++) {
+            for (int i = 1; i <= n; i++) {
+                for (int w = 0; w < words; w++) {
+                    mask[w] = random.nextLong() & random.nextLong();
+                }
+                for (int j = 1; j <= n; j++) {
+                    if ((mask[(j - 1) >>> 6] & (1L << (j - 1))) != 0) {
+                        expected.open(i, j);
+                    }
+                }
+                actual.openRow(i, mask);
+            }
+            assertEquals(expected.percolates(), actual.percolates());
+            assertEquals(expected.numberOfOpenSites(), actual.numberOfOpenSites());
+            for (int i = 1; i <= n; i++) {
+                for (int j = 1; j <= n; j++) {
+                    assertEquals(expected.isOpen(i, j), actual.isOpen(i, j));
+                    assertEquals(expected.isFull(i, j), actual.isFull(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void OpenRegion_Rectangle_ShouldOpenExactlyTheRectangle() {
+        int n = 100;
+        Percolation ps = new Percolation(n);
+        ps.openRegion(3, 60, 40, 70);
+        assertEquals(38 * 11, ps.numberOfOpenSites());
+        assertTrue(ps.isOpen(3, 60));
+        assertTrue(ps.isOpen(40, 70));
+        assertFalse(ps.isOpen(2, 60));
+        assertFalse(ps.isOpen(3, 71));
+        ps.openRegion(1, 65, 100, 65);
+        assertTrue(ps.percolates());
+        assertTrue(ps.isFull(40, 60));
+    }
+
+    @Test
+    public void CopyRow_AfterOpen_ShouldDiffToTheOpenedSites() {
+        Percolation ps = new Percolation(70);
+        long[] before = new long[2];
+        long[] after = new long[2];
+        ps.open(5, 3);
+        ps.copyRow(5, before);
+        ps.open(5, 66);
+        ps.copyRow(5, after);
+        assertEquals(0, before[0] ^ after[0]);
+        assertEquals(1L << 1, before[1] ^ after[1]);
+    }
+
+    @Test
+    public void Reset_AfterPercolating_ShouldMatchAFreshGridForBothBackends() {
+        int n = 40;
+        for (Percolation.Backend backend : Percolation.Backend.values()) {
+            Percolation reused = new Percolation(n, backend);
+            Random random = new Random(21);
+            for (int pass = 0; pass < 4; pass++) {
+                reused.reset();
+                assertEquals(0, reused.numberOfOpenSites());
+                assertFalse(reused.percolates());
+                Percolation fresh = new Percolation(n, backend);
+                int opened = 0;
+                while (!fresh.percolates() || opened < n * n / 2) {
+                    int site = random.nextInt(n * n);
+                    fresh.open(site);
+                    reused.open(site);
+                    opened++;
+                }
+                assertEquals(fresh.percolates(), reused.percolates());
+                for (int i = 1; i <= n; i++) {
+                    for (int j = 1; j <= n; j++) {
+                        assertEquals(fresh.isOpen(i, j), reused.isOpen(i, j));
+                        assertEquals(fresh.isFull(i, j), reused.isFull(i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void Rollback_NestedWhatIfBatches_ShouldMatchGridsBuiltWithoutThem() {
+        int n = 30;
+        Random random = new Random(23);
+        Percolation live = new Percolation(n);
+        Percolation base = new Percolation(n);
+        for (int k = 0; k < n * n / 2; k++) {
+            int site = random.nextInt(n * n);
+            live.open(site);
+            base.open(site);
+        }
+        for (int query = 0; query < 20; query++) {
+            int outer = live.mark();
+            Percolation expected = new Percolation(n);
+            copyOpenSites(base, expected, n);
+            for (int k = 0; k < 50; k++) {
+                int site = random.nextInt(n * n);
+                live.open(site);
+                expected.open(site);
+            }
+            int inner = live.mark();
+            long[] mask = new long[1];
+            mask[0] = random.nextLong();
+            live.openRow(1 + random.nextInt(n), mask);
+            live.open(random.nextInt(n * n));
+            live.rollback(inner);
+            assertSameSites(expected, live, n);
+            live.rollback(outer);
+            assertSameSites(base, live, n);
+        }
+    }
+
+    @Test
+    public void Rollback_WhatIfThatPercolates_ShouldClearPercolates() {
+        Percolation perc = new Percolation(3);
+        perc.open(1, 2);
+        perc.open(3, 2);
+        int mark = perc.mark();
+        perc.open(2, 2);
+        assertTrue(perc.percolates());
+        perc.rollback(mark);
+        assertFalse(perc.percolates());
+        assertFalse(perc.isFull(3, 2));
+        // once committed the batch stays and later rollbacks cannot reach it
+        perc.mark();
+        perc.open(2, 2);
+        perc.commit();
+        assertTrue(perc.percolates());
+        assertTrue(perc.isFull(3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Rollback_UsedMark_ShouldThrowIllegalArgumentException() {
+        Percolation perc = new Percolation(3);
+        int mark = perc.mark();
+        perc.rollback(mark);
+        perc.rollback(mark);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Mark_WeightedQuickUnionBackend_ShouldThrowIllegalStateException() {
+        new Percolation(3, Percolation.Backend.WEIGHTED_QUICK_UNION).mark();
+    }
+
+    @Test
+    public void Open_EveryLayout_ShouldAnswerLikeRowMajor() {
+        Random random = new Random(29);
+        for (int n : new int[] { 2, 5, 17, 64, 70 }) {
+            for (Percolation.Layout layout : Percolation.Layout.values()) {
+                Percolation expected = new Percolation(n);
+                Percolation actual = new Percolation(n, Percolation.Backend.FLAT, layout);
+                for (int pass = 0; pass < 2; pass++) {
+                    expected.reset();
+                    actual.reset();
+                    for (int k = 0; k < n * n * 3 / 5; k++) {
+                        int site = random.nextInt(n * n);
+                        expected.open(site);
+                        actual.open(site);
+                    }
+                    long[] mask = { random.nextLong(), random.nextLong() };
+                    int row = 1 + random.nextInt(n);
+                    expected.openRow(row, mask);
+                    actual.openRow(row, mask);
+                    int mark = actual.mark();
+                    actual.openRegion(1, 1, n, 1);
+                    actual.rollback(mark);
+                    assertSameSites(expected, actual, n);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_MortonPastIntNodes_ShouldThrowIllegalArgumentException() {
+        new Percolation(40000, Percolation.Backend.FLAT, Percolation.Layout.MORTON);
+    }
+
+    @Test
+    public void FullMask_RandomGrids_ShouldMatchIsFullAndIsOpen() {
+        Random random = new Random(31);
+        for (int n : new int[] { 2, 3, 63, 64, 65, 130 }) {
+            for (Percolation.Layout layout : Percolation.Layout.values()) {
+                Percolation perc = new Percolation(n, Percolation.Backend.FLAT, layout);
+                double p = 0.4 + 0.3 * random.nextDouble();
+                for (int site = 0; site < n * n; site++) {
+                    if (random.nextDouble() < p) {
+                        perc.open(site);
+                    }
+                }
+                int words = (n + 63) / 64;
+                long[] mask = new long[n * words];
+                long[] row = new long[words];
+                byte[] states = new byte[n];
+                perc.fullMask(mask);
+                for (int i = 1; i <= n; i++) {
+                    perc.fillRowState(i, states);
+                    perc.copyFullRow(i, row);
+                    for (int j = 1; j <= n; j++) {
+                        boolean full = perc.isFull(i, j);
+                        byte state = full ? Percolation.SITE_FULL
+                                : perc.isOpen(i, j) ? Percolation.SITE_OPEN : Percolation.SITE_CLOSED;
+                        assertEquals(state, states[j - 1]);
+                        assertEquals(full, (row[(j - 1) / 64] & (1L << (j - 1))) != 0);
+                        assertEquals(full, (mask[(i - 1) * words + (j - 1) / 64] & (1L << (j - 1))) != 0);
+                    }
+                    // no stray bits past column n
+                    assertEquals(0, row[words - 1] & ~(n % 64 == 0 ? -1L : (1L << (n % 64)) - 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void OpenMask_RandomSnapshots_ShouldMatchOpeningEachSite() {
+        Random random = new Random(41);
+        for (int n : new int[] { 2, 63, 64, 65, 700 }) {
+            int words = (n + 63) / 64;
+            long[] mask = new long[n * words];
+            Percolation expected = new Percolation(n);
+            double p = 0.3 + 0.6 * random.nextDouble();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (random.nextDouble() < p) {
+                        mask[i * words + j / 64] |= 1L << j;
+                        expected.open(i + 1, j + 1);
+                    }
+                }
+            }
+            // stray bits past column n are ignored
+            mask[words - 1] |= n % 64 == 0 ? 0 : -1L << (n % 64);
+            for (Percolation.Backend backend : Percolation.Backend.values()) {
+                Percolation actual = new Percolation(n, backend);
+                actual.openMask(mask);
+                assertSameSites(expected, actual, n);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void FillRowState_ShortBuffer_ShouldThrowIllegalArgumentException() {
+        new Percolation(5).fillRowState(1, new byte[4]);
+    }
+
+    private static void copyOpenSites(Percolation from, Percolation to, int n) {
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (from.isOpen(i, j)) {
+                    to.open(i, j);
+                }
+            }
+        }
+    }
+
+    private static void assertSameSites(Percolation expected, Percolation actual, int n) {
+        assertEquals(expected.percolates(), actual.percolates());
+        assertEquals(expected.numberOfOpenSites(), actual.numberOfOpenSites());
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                assertEquals(expected.isOpen(i, j), actual.isOpen(i, j));
+                assertEquals(expected.isFull(i, j), actual.isFull(i, j));
+            }
+        }
+    }
 }
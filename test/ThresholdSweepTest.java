@@ -0,0 +1,111 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ThresholdSweepTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_SizeOne_ShouldThrowIllegalArgumentException() {
+        new ThresholdSweep(new int[] { 1 }, new double[] { 0.5 }, 10, 1L, ForkJoinPool.commonPool());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_NoTrials_ShouldThrowIllegalArgumentException() {
+        new ThresholdSweep(new int[] { 4 }, new double[] { 0.5 }, 0, 1L, ForkJoinPool.commonPool());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_NoProbabilities_ShouldThrowIllegalArgumentException() {
+        new ThresholdSweep(new int[] { 4 }, new double[0], 10, 1L, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    public void Convolve_SingleCriticalIndex_ShouldBeBinomialTail() {
+        // with every trial percolating at 3 of 4 sites the answer is P(Binomial(4, p) >= 3)
+        double p = 0.3;
+        double expected = 4 * p * p * p * (1 - p) + p * p * p * p;
+        assertEquals(expected, ThresholdSweep.convolve(new double[] { 3, 3 }, 4, p), 1e-12);
+    }
+
+    @Test
+    public void Sweep_EndpointsAndOrder_ShouldRiseFromZeroToOne() {
+        double[] probabilities = { 0, 0.3, 0.5, 0.59, 0.7, 1 };
+        ThresholdSweep sweep = new ThresholdSweep(new int[] { 8, 32 }, probabilities, 200, 5L,
+                ForkJoinPool.commonPool());
+        for (int s = 0; s < 2; s++) {
+            assertEquals(0, sweep.percolationProbability(s, 0), 0.0);
+            assertEquals(1, sweep.percolationProbability(s, probabilities.length - 1), 0.0);
+            for (int k = 1; k < probabilities.length; k++) {
+                assertTrue(sweep.percolationProbability(s, k) >= sweep.percolationProbability(s, k - 1));
+            }
+        }
+        // the larger grid has the sharper transition around 0.593
+        assertTrue(sweep.percolationProbability(1, 1) <= sweep.percolationProbability(0, 1));
+        assertTrue(sweep.percolationProbability(1, 4) >= sweep.percolationProbability(0, 4));
+    }
+
+    @Test
+    public void Sweep_SmallGrid_ShouldMatchDirectSitePSampling() {
+        int n = 6;
+        double p = 0.6;
+        ThresholdSweep sweep = new ThresholdSweep(new int[] { n }, new double[] { p }, 4000, 9L,
+                ForkJoinPool.commonPool());
+        Random random = new Random(9);
+        int samples = 4000;
+        int percolated = 0;
+        for (int t = 0; t < samples; t++) {
+            Percolation perc = new Percolation(n);
+            for (int site = 0; site < n * n; site++) {
+                if (random.nextDouble() < p) {
+                    perc.open(site);
+                }
+            }
+            if (perc.percolates()) {
+                percolated++;
+            }
+        }
+        assertEquals((double) percolated / samples, sweep.percolationProbability(0, 0), 0.04);
+    }
+
+    @Test
+    public void WriteCsv_TwoByTwo_ShouldWriteHeaderAndFourLines() {
+        ThresholdSweep sweep = new ThresholdSweep(new int[] { 4, 5 }, new double[] { 0.4, 0.6 }, 10, 1L,
+                ForkJoinPool.commonPool());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sweep.writeCsv(new PrintStream(bytes, true));
+        String[] lines = bytes.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertEquals("n,p,trials,percolation_probability,standard_error", lines[0]);
+        assertTrue(lines[4].startsWith("5,0.6,10,"));
+    }
+
+    @Test
+    public void WriteCsv_CommaDecimalLocale_ShouldWriteFiveParsableFields() {
+        ThresholdSweep sweep = new ThresholdSweep(new int[] { 16 }, new double[] { 0.5, 0.6 }, 50, 3L,
+                ForkJoinPool.commonPool());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            sweep.writeCsv(new PrintStream(bytes, true));
+        } finally {
+            Locale.setDefault(locale);
+        }
+        String[] lines = bytes.toString().split("\n");
+        assertEquals(3, lines.length);
+        for (int k = 1; k < lines.length; k++) {
+            String[] fields = lines[k].split(",");
+            assertEquals(5, fields.length);
+            for (String field : fields) {
+                Double.parseDouble(field);
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac InteractivePercolationVisualizer.java
  *  Execution:    java InteractivePercolationVisualizer n
- *  Dependencies: PercolationVisualizer.java Percolation.java
+ *  Dependencies: PercolationRenderer.java Percolation.java
  *                StdDraw.java StdOut.java
  *
  *  This program takes the grid size n as a command-line argument.
@@ -24,10 +24,8 @@ public class InteractivePercolationVisualizer {
         // repeatedly open site specified my mouse click and draw resulting system
         StdOut.println(n);
 
-        StdDraw.enableDoubleBuffering();
         Percolation perc = new Percolation(n);
-        PercolationVisualizer.draw(perc, n);
-        StdDraw.show();
+        PercolationRenderer renderer = new PercolationRenderer(perc, n, 60);
 
         while (true) {
 
@@ -48,13 +46,13 @@ public class InteractivePercolationVisualizer {
                         StdOut.println(i + " " + j);
                     }
                     perc.open(i, j);
+                    renderer.opened(i, j);
                 }
-
-                // draw n-by-n percolation system
-                PercolationVisualizer.draw(perc, n);
-                StdDraw.show();
             }
 
+            // show what changed since the last frame
+            renderer.frame();
+
             StdDraw.pause(20);
         }
     }